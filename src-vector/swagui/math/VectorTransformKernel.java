@@ -0,0 +1,68 @@
+package swagui.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel of TransformBatch using the incubating Vector API, processing as many
+ * tiles per instruction as the preferred vector size allows.
+ * Kept apart from the rest of the library, as it only compiles with the
+ * incubator module present, and loaded reflectively where it is available.
+ * To enable, compile against the library and run, each with
+ * --add-modules jdk.incubator.vector (Java 16 or later).
+ * @author Alec Dorrington
+ */
+class VectorTransformKernel implements TransformBatch.Kernel {
+    
+    /** Preferred species of floats, and of ints with the same number of lanes. */
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    
+    VectorTransformKernel() {
+        
+        //Fall back to scalar loops where vectors are no wider than a single lane.
+        if(FLOATS.length() < 2 || INTS.length() != FLOATS.length())
+            throw new UnsupportedOperationException("No vector support.");
+    }
+    
+    @Override
+    public void scale(int count, float[] sin, float[] cos, float[] width, float[] height,
+            float[] m00, float[] m01, float[] m10, float[] m11) {
+        
+        int i = 0;
+        for(int bound = FLOATS.loopBound(count); i < bound; i += FLOATS.length()) {
+            FloatVector s = FloatVector.fromArray(FLOATS, sin, i);
+            FloatVector c = FloatVector.fromArray(FLOATS, cos, i);
+            FloatVector w = FloatVector.fromArray(FLOATS, width, i);
+            FloatVector h = FloatVector.fromArray(FLOATS, height, i);
+            c.mul(w).intoArray(m00, i);
+            s.neg().mul(h).intoArray(m01, i);
+            s.mul(w).intoArray(m10, i);
+            c.mul(h).intoArray(m11, i);
+        }
+        
+        //Remaining tiles, fewer than a vector.
+        for(; i < count; i++) {
+            m00[i] = cos[i] * width[i];
+            m01[i] = -sin[i] * height[i];
+            m10[i] = sin[i] * width[i];
+            m11[i] = cos[i] * height[i];
+        }
+    }
+    
+    @Override
+    public void depth(int count, int[] depth, float[] tz) {
+        
+        int i = 0;
+        for(int bound = INTS.loopBound(count); i < bound; i += INTS.length()) {
+            FloatVector d = (FloatVector) IntVector.fromArray(INTS, depth, i)
+                    .add(1).convert(VectorOperators.I2F, 0);
+            d.div(100.0F).neg().add(1.0F).intoArray(tz, i);
+        }
+        
+        //Remaining tiles, fewer than a vector.
+        for(; i < count; i++) tz[i] = 1.0F - (depth[i] + 1) / 100.0F;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package swagui.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import swagui.graphics.Colour;
+import swagui.layouts.Frame;
+import swagui.tiles.Snapshot;
+import swagui.tiles.Tile;
+
+/**
+ * Checks that capturing the render state of tiles allocates no memory
+ * once warmed up, using the allocated-bytes counter of the current thread.
+ * Tiles are moved every frame, so that their transformations are recalculated.
+ * Runs without a window, so covers the CPU side of rendering only.
+ * Usage: CaptureAllocationCheck [tiles] [frames]
+ * Exits with status 1 if any bytes were allocated.
+ * @author Alec Dorrington
+ */
+public class CaptureAllocationCheck {
+    
+    public static void main(String[] args) {
+        
+        int numTiles = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if(!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counters unsupported.");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        //Tiles nested in frames, as in a scene.
+        List<Tile> tiles = new ArrayList<>(numTiles);
+        Frame frame = new Frame();
+        for(int i = 0; i < numTiles; i++) {
+            if(i % 100 == 0) {
+                frame = new Frame();
+                tiles.add(frame);
+            }
+            Tile tile = new Tile(i % 800 - 400, i % 600 - 300, 10, 10)
+                    .setColour(i % 2 == 0 ? Colour.WHITE : Colour.SEARBROOK)
+                    .setAngle(i % 360);
+            frame.addTile(tile);
+            tiles.add(tile);
+        }
+        Snapshot snapshot = new Snapshot();
+        
+        //Warm up, so that the capture is compiled and the arrays have grown.
+        for(int f = 0; f < frames; f++) frame(tiles, snapshot, f);
+        
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for(int f = 0; f < frames; f++) frame(tiles, snapshot, f);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        
+        System.out.printf("%d tiles, %d frames: %d bytes allocated (%.1f per frame)%n",
+                numTiles, frames, allocated, (double) allocated / frames);
+        if(allocated > 0) System.exit(1);
+    }
+    
+    /**
+     * Move every tile, then capture them all.
+     * @param tiles to capture.
+     * @param snapshot into which tiles are captured.
+     * @param f frame number.
+     */
+    private static void frame(List<Tile> tiles, Snapshot snapshot, int f) {
+        for(int i = 0; i < tiles.size(); i++) {
+            Tile tile = tiles.get(i);
+            tile.setX(tile.getX() + (f % 2 == 0 ? 1 : -1));
+        }
+        snapshot.capture(tiles);
+    }
+}
\ No newline at end of file
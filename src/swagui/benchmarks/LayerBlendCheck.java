@@ -0,0 +1,95 @@
+package swagui.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Checks that a translucent cached layout blends over the scene as its tiles
+ * would uncached, by modelling the blending of both paths in 8-bit colour.
+ * Uncached, each tile is blended over the window with GL_SRC_ALPHA and
+ * GL_ONE_MINUS_SRC_ALPHA. Cached, tiles are first blended over transparency
+ * into the layer texture, with alpha blended by GL_ONE and GL_ONE_MINUS_SRC_ALPHA,
+ * so it holds premultiplied colour; the quad then samples it in texture mode 3,
+ * which divides by alpha, and is blended over the window as any other tile.
+ * Runs without a window, so covers the blending equations only.
+ * Usage: LayerBlendCheck [trials=100000]
+ * Each 8-bit blend rounds by up to half a step, on either path, so channels
+ * may differ by up to one step per tile in the layout; applying alpha twice,
+ * as without texture mode 3, is also measured for comparison.
+ * Exits with status 1 if any channel differs by more than one step per tile.
+ * @author Alec Dorrington
+ */
+public class LayerBlendCheck {
+    
+    public static void main(String[] args) {
+        
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Random random = new Random(0);
+        int maxError = 0, maxExcess = Integer.MIN_VALUE, maxTwice = 0;
+        
+        for(int t = 0; t < trials; t++) {
+            
+            //Opaque window background, and a stack of translucent tiles.
+            float[] window = {channel(random), channel(random), channel(random), 1.0F};
+            float[] uncached = window.clone();
+            float[] layer = {0.0F, 0.0F, 0.0F, 0.0F};
+            int count = 1 + random.nextInt(5);
+            for(int i = 0; i < count; i++) {
+                float[] tile = {channel(random), channel(random),
+                        channel(random), channel(random)};
+                blend(uncached, tile, false);
+                blend(layer, tile, true);
+            }
+            
+            //Quad of the layer, white, sampled as premultiplied.
+            float[] texel = layer.clone();
+            if(texel[3] > 0.0F) {
+                for(int c = 0; c < 3; c++) texel[c] /= texel[3];
+            }
+            float[] cached = window.clone(), twice = window.clone();
+            blend(cached, texel, false);
+            blend(twice, layer, false);
+            
+            for(int c = 0; c < 3; c++) {
+                int error = Math.abs(Math.round(255 * cached[c]) - Math.round(255 * uncached[c]));
+                maxError = Math.max(maxError, error);
+                maxExcess = Math.max(maxExcess, error - count);
+                maxTwice = Math.max(maxTwice,
+                        Math.abs(Math.round(255 * twice[c]) - Math.round(255 * uncached[c])));
+            }
+        }
+        
+        System.out.printf("%d trials: largest difference %d/255 (%d/255 applying alpha twice)%n",
+                trials, maxError, maxTwice);
+        if(maxExcess > 0) System.exit(1);
+    }
+    
+    /**
+     * Blend a fragment into an 8-bit colour buffer.
+     * @param dest colour in the buffer (RGBA), updated.
+     * @param src colour of the fragment (RGBA).
+     * @param separate whether alpha is blended by GL_ONE, GL_ONE_MINUS_SRC_ALPHA,
+     * as into the texture of a cached layout.
+     */
+    private static void blend(float[] dest, float[] src, boolean separate) {
+        
+        float a = src[3];
+        for(int c = 0; c < 3; c++) dest[c] = quantise(a * src[c] + (1 - a) * dest[c]);
+        dest[3] = quantise((separate ? 1 : a) * a + (1 - a) * dest[3]);
+    }
+    
+    /**
+     * @param value colour channel (0-1).
+     * @return the channel as stored in an 8-bit buffer.
+     */
+    private static float quantise(float value) {
+        return Math.round(255 * Math.min(Math.max(value, 0.0F), 1.0F)) / 255.0F;
+    }
+    
+    /**
+     * @param random source of randomness.
+     * @return a random 8-bit colour channel.
+     */
+    private static float channel(Random random) {
+        return random.nextInt(256) / 255.0F;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package swagui.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+
+import swagui.math.TransformBatch;
+
+/**
+ * Compares computing a batch of tile transformations with scalar loops
+ * and with the Vector API, at several batch sizes, including writing the
+ * batch in the per-instance layout of the tile shader. Also checks that
+ * both produce identical results.
+ * The Vector API is used only if its kernel is compiled and the JVM is run
+ * with --add-modules jdk.incubator.vector; otherwise only scalar loops are timed.
+ * Usage: TransformBatchBenchmark [iterations=2000]
+ * @author Alec Dorrington
+ */
+public class TransformBatchBenchmark {
+    
+    /** Number of tiles in each batch benchmarked. */
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    
+    public static void main(String[] args) {
+        
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.println("Vector API " + (TransformBatch.isVectorSupported()
+                ? "available." : "unavailable, timing scalar loops only."));
+        System.out.printf("%-8s %16s %16s %16s %16s%n", "tiles",
+                "scalar ns/tile", "vector ns/tile", "+put scalar", "+put vector");
+        
+        //Once to warm up, so that every size is measured compiled, then again to report.
+        for(int size : SIZES) measure(size, iterations, false);
+        for(int size : SIZES) measure(size, iterations, true);
+    }
+    
+    /**
+     * Measure both kernels on a batch of random tiles.
+     * @param size number of tiles in the batch.
+     * @param iterations number of batches of 1000 tiles to time.
+     * @param report whether to print the results.
+     */
+    private static void measure(int size, int iterations, boolean report) {
+        
+        //Random tiles, as particles.
+        Random random = new Random(size);
+        float[] x = new float[size], y = new float[size],
+                width = new float[size], height = new float[size],
+                colours = new float[4 * size];
+        int[] angle = new int[size], depth = new int[size];
+        for(int i = 0; i < size; i++) {
+            x[i] = random.nextInt(1280) - 640;
+            y[i] = random.nextInt(960) - 480;
+            width[i] = 1 + random.nextInt(16);
+            height[i] = 1 + random.nextInt(16);
+            angle[i] = random.nextInt(720) - 360;
+            depth[i] = random.nextInt(100);
+        }
+        Arrays.fill(colours, 1.0F);
+        ByteBuffer dest = BufferUtils.createByteBuffer(
+                TransformBatch.INSTANCE_FLOATS * Float.BYTES * size);
+        
+        TransformBatch scalar = new TransformBatch().setVectorised(false);
+        TransformBatch vector = new TransformBatch().setVectorised(true);
+        Runnable computeScalar = () -> scalar.compute(size, x, y, width, height, angle, depth);
+        Runnable computeVector = () -> vector.compute(size, x, y, width, height, angle, depth);
+        
+        double s = time(computeScalar, iterations, size);
+        double v = vector.isVectorised() ? time(computeVector, iterations, size) : Double.NaN;
+        double sp = time(() -> {
+            computeScalar.run();
+            scalar.put(dest.clear(), colours);
+        }, iterations, size);
+        double vp = vector.isVectorised() ? time(() -> {
+            computeVector.run();
+            vector.put(dest.clear(), colours);
+        }, iterations, size) : Double.NaN;
+        
+        //Both kernels must agree exactly.
+        if(vector.isVectorised() && !Arrays.equals(scalar.get(new float[16 * size], 0),
+                vector.get(new float[16 * size], 0))) {
+            System.out.println("Scalar and vector results differ.");
+            System.exit(1);
+        }
+        if(report) System.out.printf("%-8d %16.2f %16.2f %16.2f %16.2f%n", size, s, v, sp, vp);
+    }
+    
+    /**
+     * Time an operation on a batch, after warming up.
+     * @param operation to time.
+     * @param iterations number of batches of 1000 tiles to time.
+     * @param size number of tiles in the batch.
+     * @return time per tile (nanoseconds).
+     */
+    private static double time(Runnable operation, int iterations, int size) {
+        
+        int runs = Math.max(10, (int) ((long) iterations * 1000 / size));
+        for(int i = 0; i < runs; i++) operation.run();
+        long start = System.nanoTime();
+        for(int i = 0; i < runs; i++) operation.run();
+        return (double) (System.nanoTime() - start) / runs / size;
+    }
+}
\ No newline at end of file
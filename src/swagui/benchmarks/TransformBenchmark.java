@@ -0,0 +1,81 @@
+package swagui.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+import swagui.math.Matrix4;
+import swagui.tiles.Tile;
+
+/**
+ * Compares calculating the transformations of tiles as a product of
+ * translation, rotation and scale matrices, as tiles originally did,
+ * with the cached Affine2 transformation now used by getTransform().
+ * Tiles are moved every frame, so that their transformations are recalculated.
+ * Reports time and memory allocated per tile, using the counters of the current thread.
+ * Usage: TransformBenchmark [tiles=10000] [frames=500]
+ * @author Alec Dorrington
+ */
+public class TransformBenchmark {
+    
+    /** Matrix copied out of a Matrix4, reused so only the method itself allocates. */
+    private static final float[] MATRIX = new float[16];
+    
+    public static void main(String[] args) {
+        
+        int numTiles = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        Tile[] tiles = new Tile[numTiles];
+        for(int i = 0; i < numTiles; i++) {
+            tiles[i] = new Tile(i % 800 - 400, i % 600 - 300, 10 + i % 7, 10 + i % 5)
+                    .setAngle(i % 360);
+        }
+        float[] dest = new float[16 * numTiles];
+        
+        System.out.printf("%-8s %12s %14s%n", "method", "ns/tile", "bytes/tile");
+        for(boolean affine : new boolean[] {false, true}) {
+            
+            //Warm up, so that both methods are compiled.
+            for(int f = 0; f < frames; f++) frame(tiles, dest, f, affine);
+            
+            long thread = Thread.currentThread().getId();
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for(int f = 0; f < frames; f++) frame(tiles, dest, f, affine);
+            long time = System.nanoTime() - start;
+            bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+            
+            System.out.printf("%-8s %12.1f %14.1f%n", affine ? "Affine2" : "Matrix4",
+                    (double) time / frames / numTiles,
+                    (double) bytes / frames / numTiles);
+        }
+    }
+    
+    /**
+     * Move every tile, then calculate all of their transformations.
+     * @param tiles to transform.
+     * @param dest array into which row-major matrices are written.
+     * @param f frame number.
+     * @param affine whether to use getTransform(), else a product of matrices.
+     */
+    private static void frame(Tile[] tiles, float[] dest, int f, boolean affine) {
+        
+        for(int i = 0; i < tiles.length; i++) {
+            Tile tile = tiles[i];
+            tile.setX(tile.getX() + (f % 2 == 0 ? 1 : -1));
+            if(affine) tile.getTransform(dest, 16 * i);
+            else {
+                //As tiles originally calculated their transformation.
+                Matrix4 scale = Matrix4.getScaleMatrix(tile.getWidth(), tile.getHeight(), 1.0F);
+                Matrix4 rotation = Matrix4.getRotationMatrix(tile.getAngle());
+                Matrix4 translation = Matrix4.getTranslationMatrix(
+                        tile.getX(), tile.getY(), 1.0F-(tile.getDepth()+1)/100.0F);
+                translation.mul(rotation.mul(scale)).get(MATRIX);
+                System.arraycopy(MATRIX, 0, dest, 16 * i, 16);
+            }
+        }
+    }
+}
\ No newline at end of file
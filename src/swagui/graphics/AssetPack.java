@@ -0,0 +1,196 @@
+package swagui.graphics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Archive of assets packed into a single memory-mapped file, created by
+ * AssetPackBuilder. Textures are stored pre-decoded, and other resources
+ * (such as shader sources) as raw bytes. Assets are served as zero-copy
+ * slices of the mapped file, found through an index read on opening.
+ * Once mounted, textures and shaders are loaded from the pack in preference
+ * to individual resources.
+ * @author Alec Dorrington
+ */
+public class AssetPack {
+    
+    /** Identifies an asset pack ("SWPK"). */
+    static final int MAGIC = 0x5357504B;
+    
+    /** Version of the pack format. */
+    static final int VERSION = 1;
+    
+    /** Size of the pack header (bytes). */
+    static final int HEADER_SIZE = 32;
+    
+    /** Alignment of each entry within the pack (bytes). */
+    static final int ALIGNMENT = 64;
+    
+    /** Types of entry. */
+    static final int RAW = 0, TEXTURE = 1;
+    
+    /** Packs currently mounted, searched in order of mounting. */
+    private static final List<AssetPack> mounted = new CopyOnWriteArrayList<>();
+    
+    /** The mapped contents of the pack. */
+    private final MappedByteBuffer data;
+    
+    /** Entries of the pack, by name. */
+    private final Map<String, Entry> entries = new HashMap<>();
+    
+    /**
+     * Open an asset pack, mapping it into memory.
+     * @param path of the pack file.
+     * @throws IOException if the pack can't be read, or is invalid.
+     */
+    public AssetPack(Path path) throws IOException {
+        
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Asset pack exceeds 2GB: " + path);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        
+        //Read header.
+        if(data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not an asset pack: " + path);
+        }
+        int count = data.getInt(8);
+        ByteBuffer index = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        index.position((int) data.getLong(16));
+        
+        //Read index.
+        for(int i = 0; i < count; i++) {
+            byte[] name = new byte[index.getInt()];
+            index.get(name);
+            Entry entry = new Entry(index.getInt(), index.getLong(), index.getLong(),
+                    index.getInt(), index.getInt(), index.getInt() != 0);
+            entries.put(new String(name, StandardCharsets.UTF_8), entry);
+        }
+    }
+    
+    /**
+     * Mount this pack, so that its assets are used in place of resources.
+     * @return this pack.
+     */
+    public AssetPack mount() {
+        mounted.add(this);
+        return this;
+    }
+    
+    /**
+     * Unmount this pack.
+     * @return this pack.
+     */
+    public AssetPack unmount() {
+        mounted.remove(this);
+        return this;
+    }
+    
+    /** @return names of all assets in the pack. */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+    
+    /**
+     * @param name of the asset.
+     * @return whether the pack contains the asset.
+     */
+    public boolean contains(String name) { return entries.containsKey(name); }
+    
+    /**
+     * Get the contents of an asset, without copying.
+     * @param name of the asset.
+     * @return read-only slice of the mapped pack, or null if absent.
+     */
+    public ByteBuffer get(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : slice(entry);
+    }
+    
+    /**
+     * Find the contents of a text asset, such as a shader source,
+     * in the mounted packs.
+     * @param name of the asset.
+     * @return the contents of the asset, or null if no pack contains it.
+     */
+    public static String findText(String name) {
+        
+        for(AssetPack pack : mounted) {
+            ByteBuffer buffer = pack.get(name);
+            if(buffer != null) return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+        return null;
+    }
+    
+    /**
+     * Load the pixels of a texture from the mounted packs.
+     * @param texture into which the pixels are loaded.
+     * @param name of the texture.
+     * @return whether any pack contains the texture.
+     */
+    static boolean findTexture(Texture texture, String name) {
+        
+        for(AssetPack pack : mounted) {
+            Entry entry = pack.entries.get(name);
+            if(entry != null && entry.type == TEXTURE) {
+                texture.setPixels(pack.slice(entry).order(ByteOrder.nativeOrder()),
+                        entry.width, entry.height, entry.opaque);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @param entry of the pack.
+     * @return read-only slice of the mapped pack, containing the entry.
+     */
+    private ByteBuffer slice(Entry entry) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.limit((int) (entry.offset + entry.size)).position((int) entry.offset);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+    
+    /**
+     * An entry in the index of a pack.
+     */
+    private static class Entry {
+        
+        /** The type of the entry (RAW or TEXTURE). */
+        private final int type;
+        
+        /** The position and size of the entry within the pack (bytes). */
+        private final long offset, size;
+        
+        /** The size of the texture (pixels, 0 if not a texture). */
+        private final int width, height;
+        
+        /** Whether the texture is fully opaque. */
+        private final boolean opaque;
+        
+        private Entry(int type, long offset, long size,
+                int width, int height, boolean opaque) {
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+            this.width = width;
+            this.height = height;
+            this.opaque = opaque;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package swagui.graphics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates asset packs, to be read by AssetPack.
+ * Images are decoded as they are added, so that none need decoding at runtime.
+ * May be run from the command line, with the output path followed by
+ * the names of the resources or files to pack. PNG images are packed as
+ * textures, and all others as raw bytes.
+ * @author Alec Dorrington
+ */
+public class AssetPackBuilder {
+    
+    /** Assets to be packed, in order. */
+    private List<Asset> assets = new ArrayList<>();
+    
+    /**
+     * Add an image, decoded as a texture.
+     * @param name of the image, from class loader or file.
+     * @return this builder.
+     */
+    public AssetPackBuilder addTexture(String name) {
+        
+        Texture texture = new Texture(name);
+        ByteBuffer pixels = texture.getPixels().duplicate();
+        pixels.clear();
+        assets.add(new Asset(name, AssetPack.TEXTURE, pixels,
+                texture.getWidth(), texture.getHeight(), texture.isOpaque()));
+        return this;
+    }
+    
+    /**
+     * Add a resource or file as raw bytes, such as a shader source.
+     * @param name of the resource or file.
+     * @return this builder.
+     * @throws IOException if the resource can't be read.
+     */
+    public AssetPackBuilder addRaw(String name) throws IOException {
+        
+        InputStream resource = getClass().getClassLoader().getResourceAsStream(name);
+        try(InputStream stream = resource != null ? resource : new FileInputStream(name)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            stream.transferTo(bytes);
+            assets.add(new Asset(name, AssetPack.RAW,
+                    ByteBuffer.wrap(bytes.toByteArray()), 0, 0, false));
+        }
+        return this;
+    }
+    
+    /**
+     * Write the pack to file.
+     * @param path of the pack file.
+     * @throws IOException if the pack can't be written.
+     */
+    public void write(Path path) throws IOException {
+        
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            
+            //Write each entry, aligned.
+            long[] offsets = new long[assets.size()];
+            long position = AssetPack.HEADER_SIZE;
+            for(int i = 0; i < assets.size(); i++) {
+                position = align(position);
+                offsets[i] = position;
+                ByteBuffer data = assets.get(i).data.duplicate();
+                while(data.hasRemaining()) position += channel.write(data, position);
+            }
+            
+            //Write the index after the entries.
+            long indexOffset = align(position);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for(int i = 0; i < assets.size(); i++) {
+                Asset asset = assets.get(i);
+                byte[] name = asset.name.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer entry = ByteBuffer.allocate(36 + name.length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                entry.putInt(name.length).put(name).putInt(asset.type)
+                    .putLong(offsets[i]).putLong(asset.data.remaining())
+                    .putInt(asset.width).putInt(asset.height)
+                    .putInt(asset.opaque ? 1 : 0);
+                bytes.write(entry.array());
+            }
+            ByteBuffer index = ByteBuffer.wrap(bytes.toByteArray());
+            position = indexOffset;
+            while(index.hasRemaining()) position += channel.write(index, position);
+            
+            //Write the header last, so incomplete packs are never valid.
+            ByteBuffer header = ByteBuffer.allocate(AssetPack.HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(AssetPack.MAGIC).putInt(AssetPack.VERSION)
+                .putInt(assets.size()).putInt(0).putLong(indexOffset).clear();
+            position = 0;
+            while(header.hasRemaining()) position += channel.write(header, position);
+        }
+    }
+    
+    /**
+     * Pack resources from the command line.
+     * @param args output path, followed by names of resources or files.
+     * @throws IOException if a resource can't be read, or the pack written.
+     */
+    public static void main(String[] args) throws IOException {
+        
+        if(args.length < 1) {
+            System.err.println("Usage: AssetPackBuilder <pack> <resources...>");
+            return;
+        }
+        AssetPackBuilder builder = new AssetPackBuilder();
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].toLowerCase().endsWith(".png")) builder.addTexture(args[i]);
+            else builder.addRaw(args[i]);
+        }
+        builder.write(Paths.get(args[0]));
+    }
+    
+    /**
+     * @param position within the pack (bytes).
+     * @return the position rounded up to the entry alignment.
+     */
+    private static long align(long position) {
+        return (position + AssetPack.ALIGNMENT - 1)
+                / AssetPack.ALIGNMENT * AssetPack.ALIGNMENT;
+    }
+    
+    /**
+     * An asset to be packed.
+     */
+    private static class Asset {
+        
+        /** The name of the asset. */
+        private final String name;
+        
+        /** The type of the asset (RAW or TEXTURE). */
+        private final int type;
+        
+        /** The contents of the asset. */
+        private final ByteBuffer data;
+        
+        /** The size of the texture (pixels, 0 if not a texture). */
+        private final int width, height;
+        
+        /** Whether the texture is fully opaque. */
+        private final boolean opaque;
+        
+        private Asset(String name, int type, ByteBuffer data,
+                int width, int height, boolean opaque) {
+            this.name = name;
+            this.type = type;
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.opaque = opaque;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package swagui.graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Compares the throughput of converting decoded images to RGBA, between
+ * the original per-pixel getRGB() loop and the raster-reading Texture.convert().
+ * Measures conversion only, as PNG decompression is common to both.
+ * Converts random images of each common type, or the given PNG files.
+ * Kept with the textures, as conversion isn't part of the public API.
+ * Usage: DecodeBenchmark [size=2048 | image.png...]
+ * @author Alec Dorrington
+ */
+public class DecodeBenchmark {
+    
+    /** Number of conversions of each image, before and during measurement. */
+    private static final int WARMUP = 10, RUNS = 20;
+    
+    public static void main(String[] args) throws IOException {
+        
+        //Images to convert, by name.
+        Map<String, BufferedImage> images = new LinkedHashMap<>();
+        if(args.length > 0 && !args[0].matches("\\d+")) {
+            for(String arg : args) images.put(arg, ImageIO.read(new File(arg)));
+        } else {
+            int size = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+            images.put("4BYTE_ABGR", random(size, BufferedImage.TYPE_4BYTE_ABGR));
+            images.put("3BYTE_BGR", random(size, BufferedImage.TYPE_3BYTE_BGR));
+            images.put("INT_ARGB", random(size, BufferedImage.TYPE_INT_ARGB));
+            images.put("BYTE_GRAY", random(size, BufferedImage.TYPE_BYTE_GRAY));
+        }
+        
+        System.out.printf("%-16s %12s %12s %8s%n", "image", "getRGB MB/s", "convert MB/s", "speedup");
+        for(Map.Entry<String, BufferedImage> entry : images.entrySet()) {
+            
+            BufferedImage image = entry.getValue();
+            ByteBuffer buffer = BufferUtils.createByteBuffer(
+                    image.getWidth() * image.getHeight() * 4);
+            IntBuffer pixels = buffer.duplicate()
+                    .order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            
+            double before = throughput(image, () -> getRGB(image, buffer));
+            double after = throughput(image, () -> Texture.convert(
+                    image, pixels, 0, image.getHeight()));
+            System.out.printf("%-16s %12.1f %12.1f %7.1fx%n",
+                    entry.getKey(), before, after, after / before);
+        }
+    }
+    
+    /**
+     * Measure the throughput of a conversion.
+     * @param image being converted.
+     * @param conversion to run.
+     * @return output written per second (MB/s).
+     */
+    private static double throughput(BufferedImage image, Runnable conversion) {
+        
+        for(int i = 0; i < WARMUP; i++) conversion.run();
+        long start = System.nanoTime();
+        for(int i = 0; i < RUNS; i++) conversion.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return RUNS * image.getWidth() * image.getHeight() * 4 / seconds / 1e6;
+    }
+    
+    /**
+     * Convert an image to RGBA as textures originally were,
+     * through getRGB() and a byte at a time.
+     * @param image to convert.
+     * @param buffer into which RGBA pixels are written.
+     * @return the bitwise AND of the alpha of each pixel.
+     */
+    private static int getRGB(BufferedImage image, ByteBuffer buffer) {
+        
+        //Copy pixels into array.
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(),
+                pixels, 0, image.getWidth());
+        
+        //Load array into buffer, accumulating alpha to detect opacity.
+        buffer.clear();
+        int alpha = 0xFF;
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < image.getWidth(); x++) {
+                int pixel = pixels[x + y * image.getWidth()];
+                buffer.put((byte) ((pixel >> 16) & 0xFF)); //Red
+                buffer.put((byte) ((pixel >> 8) & 0xFF));  //Green
+                buffer.put((byte) (pixel & 0xFF));         //Blue
+                buffer.put((byte) (pixel >> 24));          //Alpha
+                alpha &= pixel >>> 24;
+            }
+        }
+        buffer.flip();
+        return alpha;
+    }
+    
+    /**
+     * Create a square image of random pixels.
+     * @param size width and height of the image (pixels).
+     * @param type of image.
+     * @return the image.
+     */
+    private static BufferedImage random(int size, int type) {
+        
+        BufferedImage image = new BufferedImage(size, size, type);
+        Random random = new Random(0);
+        int[] row = new int[size];
+        for(int y = 0; y < size; y++) {
+            for(int x = 0; x < size; x++) row[x] = random.nextInt();
+            image.setRGB(0, y, size, 1, row, 0, size);
+        }
+        return image;
+    }
+}
\ No newline at end of file
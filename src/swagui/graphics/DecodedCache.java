@@ -0,0 +1,171 @@
+package swagui.graphics;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Optional on-disk cache of decoded textures, so that images need only be
+ * decoded on the first launch. Each entry holds the raw RGBA pixels of an
+ * image, keyed by its path, size and modification time. Later launches
+ * memory-map the entry, and upload the mapped pixels directly, with no
+ * decoding or copying. Disabled until a directory is set.
+ * @author Alec Dorrington
+ */
+public class DecodedCache {
+    
+    /** Identifies a cache entry ("SWGT"). */
+    private static final int MAGIC = 0x53574754;
+    
+    /** Version of the entry format. */
+    private static final int VERSION = 1;
+    
+    /** Offset of the pixels within an entry, after the header (bytes). */
+    private static final int HEADER_SIZE = 4096;
+    
+    /** Directory in which entries are stored (null if disabled). */
+    private static volatile Path directory;
+    
+    private DecodedCache() {}
+    
+    /** @return directory in which decoded textures are cached (null if disabled). */
+    public static Path getDirectory() { return directory; }
+    
+    /**
+     * Enable caching of decoded textures.
+     * @param directory in which to store decoded textures (null to disable).
+     */
+    public static void setDirectory(Path directory) {
+        DecodedCache.directory = directory;
+    }
+    
+    /**
+     * Load the decoded pixels of an image from the cache, if present and current.
+     * @param texture into which the pixels are loaded.
+     * @param imageName name of the image, from class loader or file.
+     * @return whether the pixels were loaded.
+     */
+    static boolean read(Texture texture, String imageName) {
+        
+        Path file = getFile(imageName);
+        if(file == null || !Files.isRegularFile(file)) return false;
+        
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            
+            //Check the header matches the image.
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC || header.getInt() != VERSION) return false;
+            int width = header.getInt(), height = header.getInt();
+            boolean opaque = header.getInt() != 0;
+            byte[] name = new byte[header.getInt()];
+            header.get(name);
+            if(!imageName.equals(new String(name, StandardCharsets.UTF_8))) return false;
+            
+            //Map the pixels, which remain valid after the channel is closed.
+            long size = 4L * width * height;
+            if(channel.size() < HEADER_SIZE + size) return false;
+            ByteBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size)
+                    .order(ByteOrder.nativeOrder());
+            texture.setPixels(pixels, width, height, opaque);
+            return true;
+        
+        } catch(IOException | RuntimeException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Store the decoded pixels of an image in the cache, if enabled.
+     * @param imageName name of the image, from class loader or file.
+     * @param pixels of the image (RGBA).
+     * @param width of the image (pixels).
+     * @param height of the image (pixels).
+     * @param opaque whether the image is fully opaque.
+     */
+    static void write(String imageName, ByteBuffer pixels,
+            int width, int height, boolean opaque) {
+        
+        Path file = getFile(imageName);
+        byte[] name = imageName.getBytes(StandardCharsets.UTF_8);
+        if(file == null || 24 + name.length > HEADER_SIZE) return;
+        
+        Path temp = null;
+        try {
+            
+            //Write to a temporary file, then move it into place.
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "texture", ".tmp");
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height)
+                    .putInt(opaque ? 1 : 0).putInt(name.length).put(name).clear();
+                while(header.hasRemaining()) channel.write(header);
+                
+                ByteBuffer data = pixels.duplicate();
+                data.clear();
+                while(data.hasRemaining()) channel.write(data);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        
+        } catch(IOException e) {
+            e.printStackTrace();
+        
+        } finally {
+            //Leave the cache untouched if the entry wasn't moved into place.
+            if(temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the file of the cache entry for an image, named by the path,
+     * size and modification time of the image.
+     * @param imageName name of the image, from class loader or file.
+     * @return the file of the cache entry, or null if caching is disabled
+     * or the image can't be found.
+     */
+    private static Path getFile(String imageName) {
+        
+        Path directory = DecodedCache.directory;
+        if(directory == null) return null;
+        
+        try {
+            
+            //Find the size and modification time of the resource or file.
+            long size, modified;
+            URL url = DecodedCache.class.getClassLoader().getResource(imageName);
+            if(url != null) {
+                URLConnection connection = url.openConnection();
+                size = connection.getContentLengthLong();
+                modified = connection.getLastModified();
+                connection.getInputStream().close();
+            } else {
+                Path path = Paths.get(imageName);
+                if(!Files.isRegularFile(path)) return null;
+                size = Files.size(path);
+                modified = Files.getLastModifiedTime(path).toMillis();
+            }
+            return directory.resolve(String.format("%08x-%x-%x.rgba",
+                    imageName.hashCode(), size, modified));
+        
+        } catch(IOException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,396 @@
+package swagui.graphics;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Image too large to be loaded as a single texture, streamed in pages.
+ * The image is split into a pyramid of levels of detail, each half the size
+ * of the last, down to a single page. Each level is split into pages of at
+ * most PAGE_SIZE pixels square, each of which is a separate texture.
+ * Pages are decoded only when requested, on the workers of a texture loader.
+ * PNG isn't random-access, so reading even a small region of the source
+ * decompresses every row above it. Pages of the finer levels are read
+ * from the source region by region, bearing that cost each time. The coarse
+ * levels, which would each sample most of the source, are instead built
+ * from an overview of at most OVERVIEW_SIZE pixels square, decoded in a
+ * single pass the first time one is requested, and kept thereafter.
+ * Once more pages are loaded than the capacity, the least-recently-requested
+ * pages are evicted, so memory use is bounded however large the image is.
+ * Pages are requested by the thread which updates the scene.
+ * @author Alec Dorrington
+ */
+public class PagedImage {
+    
+    /** Maximum width and height of each page (pixels). */
+    public static final int PAGE_SIZE = 512;
+    
+    /** Maximum width and height of the overview, from which coarse levels are built (pixels). */
+    public static final int OVERVIEW_SIZE = 4 * PAGE_SIZE;
+    
+    /** Orders pages from least to most recently requested. */
+    private static final Comparator<Page> LRU =
+            Comparator.comparingLong(p -> p.lastUsed);
+    
+    /** Name of the source image, from class loader or file. */
+    private final String name;
+    
+    /** Size of the source image (pixels). */
+    private final int width, height;
+    
+    /** Number of levels of detail, the last of which is a single page. */
+    private final int numLevels;
+    
+    /** The finest level of detail built from the overview, rather than the source. */
+    private final int overviewLevel;
+    
+    /** RGBA pixels of the overview, at the overview level (null until decoded). */
+    private int[] overview;
+    
+    /** Loader on which pages are decoded and uploaded. */
+    private final TextureLoader loader;
+    
+    /** Pages which are loading or loaded, by key. */
+    private final Map<Long, Page> pages = new HashMap<>();
+    
+    /** Maximum number of pages to keep loaded. */
+    private int capacity = 96;
+    
+    /** The current frame number. */
+    private long frame = 0;
+    
+    /** Total number of pages requested for loading, and evicted. */
+    private long loads = 0, evictions = 0;
+    
+    /**
+     * Open an image to be streamed. Only the header of the image is read.
+     * @param imageName name of image, from class loader or file.
+     * @param loader on which pages are decoded and uploaded.
+     */
+    public PagedImage(String imageName, TextureLoader loader) {
+        
+        name = imageName;
+        this.loader = loader;
+        
+        //Read the size of the image, without decoding it.
+        try(InputStream in = open();
+                ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = ImageIO.getImageReaders(stream).next();
+            try {
+                reader.setInput(stream, true, true);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        //Halve the image until it fits in a single page.
+        int levels = 1;
+        while(getLevelWidth(levels - 1) > PAGE_SIZE
+                || getLevelHeight(levels - 1) > PAGE_SIZE) levels++;
+        numLevels = levels;
+        
+        //Build levels from the overview once it fits within its maximum size.
+        int level = 0;
+        while(getLevelWidth(level) > OVERVIEW_SIZE
+                || getLevelHeight(level) > OVERVIEW_SIZE) level++;
+        overviewLevel = level;
+    }
+    
+    /** @return name of the source image. */
+    public String getName() { return name; }
+    
+    /** @return width of the source image (pixels). */
+    public int getWidth() { return width; }
+    
+    /** @return height of the source image (pixels). */
+    public int getHeight() { return height; }
+    
+    /** @return number of levels of detail (0 being full size). */
+    public int getNumLevels() { return numLevels; }
+    
+    /**
+     * @param level of detail.
+     * @return width of the image at the level (pixels).
+     */
+    public int getLevelWidth(int level) {
+        return (width + (1 << level) - 1) >> level;
+    }
+    
+    /**
+     * @param level of detail.
+     * @return height of the image at the level (pixels).
+     */
+    public int getLevelHeight(int level) {
+        return (height + (1 << level) - 1) >> level;
+    }
+    
+    /**
+     * @param level of detail.
+     * @return number of columns of pages at the level.
+     */
+    public int getNumCols(int level) {
+        return (getLevelWidth(level) + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+    
+    /**
+     * @param level of detail.
+     * @return number of rows of pages at the level.
+     */
+    public int getNumRows(int level) {
+        return (getLevelHeight(level) + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+    
+    /** @return maximum number of pages to keep loaded. */
+    public int getCapacity() { return capacity; }
+    
+    /**
+     * Set the maximum number of pages to keep loaded. Each page uses at most
+     * 1MB of memory. Pages requested in the current frame are never evicted.
+     * @param capacity maximum number of pages (default 96).
+     * @return this image.
+     */
+    public PagedImage setCapacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+    
+    /** @return the number of pages loading or loaded. */
+    public int getNumPages() { return pages.size(); }
+    
+    /** @return total number of pages requested for loading. */
+    public long getLoads() { return loads; }
+    
+    /** @return total number of pages evicted. */
+    public long getEvictions() { return evictions; }
+    
+    /**
+     * Request a page for rendering in this frame, loading it if required.
+     * The page is not ready to be rendered until it has loaded.
+     * @param level of detail.
+     * @param col column of the page, left-to-right.
+     * @param row row of the page, top-to-bottom.
+     * @return the texture of the page.
+     */
+    public Texture getPage(int level, int col, int row) {
+        
+        long key = (long) level << 48 | (long) col << 24 | row;
+        Page page = pages.get(key);
+        if(page == null) {
+            page = new Page(key, level, col, row);
+            pages.put(key, page);
+            Page decoding = page;
+            loader.load(page, () -> decode(decoding));
+            loads++;
+        }
+        page.lastUsed = frame;
+        return page;
+    }
+    
+    /**
+     * Finish the frame, evicting pages until within capacity.
+     */
+    public void endFrame() {
+        
+        if(pages.size() > capacity) {
+            
+            //Evict least-recently-requested pages, cancelling any still to be decoded.
+            List<Page> order = new ArrayList<>(pages.values());
+            order.sort(LRU);
+            Iterator<Page> it = order.iterator();
+            while(pages.size() > capacity && it.hasNext()) {
+                Page page = it.next();
+                if(page.lastUsed == frame) break;
+                page.discarded = true;
+                pages.remove(page.key);
+                loader.discard(page);
+                evictions++;
+            }
+        }
+        frame++;
+    }
+    
+    /**
+     * Evict all pages and release the overview upon completion.
+     */
+    public void destroy() {
+        pages.values().forEach(p -> {
+            p.discarded = true;
+            loader.discard(p);
+        });
+        pages.clear();
+        synchronized(this) { overview = null; }
+    }
+    
+    /**
+     * Decode the pixels of a page, from the overview at coarse levels,
+     * or else by reading only the region of the source image it covers.
+     * Runs on a worker thread.
+     * @param page to decode.
+     */
+    private void decode(Page page) {
+        
+        //Skip pages evicted before they were decoded.
+        if(page.discarded) throw new CancellationException();
+        
+        if(page.level >= overviewLevel) {
+            sample(page);
+            return;
+        }
+        
+        //Region of the source image covered by the page, and the sampling interval.
+        int scale = 1 << page.level, span = PAGE_SIZE * scale;
+        int x = page.col * span, y = page.row * span;
+        BufferedImage image = read(new Rectangle(x, y,
+                Math.min(span, width - x), Math.min(span, height - y)), scale);
+        
+        //Convert to RGBA, as for whole textures.
+        int w = image.getWidth(), h = image.getHeight();
+        ByteBuffer buffer = BufferUtils.createByteBuffer(w * h * 4);
+        int alpha = Texture.convert(image, buffer.duplicate()
+                .order(ByteOrder.BIG_ENDIAN).asIntBuffer(), 0, h);
+        page.setPixels(buffer, w, h, alpha == 0xFF);
+    }
+    
+    /**
+     * Build the pixels of a page at a coarse level by sampling the overview,
+     * which selects the same source pixels as subsampling the source would.
+     * Runs on a worker thread.
+     * @param page to build.
+     */
+    private void sample(Page page) {
+        
+        int[] pixels = getOverview();
+        int stride = getLevelWidth(overviewLevel);
+        
+        //Region of the overview covered by the page, and the sampling interval.
+        int step = 1 << (page.level - overviewLevel), span = PAGE_SIZE * step;
+        int x = page.col * span, y = page.row * span;
+        int w = Math.min(PAGE_SIZE, getLevelWidth(page.level) - page.col * PAGE_SIZE);
+        int h = Math.min(PAGE_SIZE, getLevelHeight(page.level) - page.row * PAGE_SIZE);
+        
+        //Pixels are written as whole RGBA ints, big-endian so red comes first.
+        ByteBuffer buffer = BufferUtils.createByteBuffer(w * h * 4);
+        IntBuffer dest = buffer.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        int alpha = 0xFF;
+        for(int r = 0; r < h; r++) {
+            int from = (y + r * step) * stride + x;
+            for(int c = 0; c < w; c++) {
+                int pixel = pixels[from + c * step];
+                dest.put(r * w + c, pixel);
+                alpha &= pixel;
+            }
+        }
+        page.setPixels(buffer, w, h, (alpha & 0xFF) == 0xFF);
+    }
+    
+    /**
+     * Get the overview of the image, decoding it in a single pass if required.
+     * Workers requesting it concurrently wait for the first to decode it.
+     * @return RGBA pixels of the image at the overview level.
+     */
+    private synchronized int[] getOverview() {
+        
+        if(overview == null) {
+            BufferedImage image = read(new Rectangle(0, 0, width, height),
+                    1 << overviewLevel);
+            int[] pixels = new int[image.getWidth() * image.getHeight()];
+            Texture.convert(image, IntBuffer.wrap(pixels), 0, image.getHeight());
+            overview = pixels;
+        }
+        return overview;
+    }
+    
+    /**
+     * Decode a region of the source image, which requires decompressing
+     * every row of the source above the bottom of the region.
+     * @param region of the source image to decode.
+     * @param scale sampling interval, in each direction.
+     * @return the decoded region.
+     */
+    private BufferedImage read(Rectangle region, int scale) {
+        
+        try(InputStream in = open();
+                ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = ImageIO.getImageReaders(stream).next();
+            try {
+                reader.setInput(stream, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(scale, scale, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * @return stream of the source image, from class loader or file.
+     * @throws IOException if the image can't be found.
+     */
+    private InputStream open() throws IOException {
+        InputStream resource = getClass().getClassLoader().getResourceAsStream(name);
+        return resource != null ? resource : new FileInputStream(name);
+    }
+    
+    /**
+     * A single page of the image, at one level of detail.
+     */
+    private static class Page extends Texture {
+        
+        /** The key of the page, unique within the image. */
+        private final long key;
+        
+        /** The level of detail of the page. */
+        private final int level;
+        
+        /** The position of the page within its level. */
+        private final int col, row;
+        
+        /** The frame in which the page was last requested. */
+        private long lastUsed;
+        
+        /** Whether the page has been evicted. */
+        private volatile boolean discarded = false;
+        
+        private Page(long key, int level, int col, int row) {
+            this.key = key;
+            this.level = level;
+            this.col = col;
+            this.row = row;
+        }
+        
+        @Override
+        public int getTextureId() {
+            //Evicted pages are never uploaded again.
+            return isUploaded() ? super.getTextureId() : 0;
+        }
+    }
+}
\ No newline at end of file
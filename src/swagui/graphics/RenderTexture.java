@@ -0,0 +1,147 @@
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Texture whose contents are rendered into it, through a framebuffer object.
+ * @author Alec Dorrington
+ */
+public class RenderTexture extends Texture {
+    
+    /** Size of the texture (pixels). */
+    private int width, height;
+    
+    /** IDs of the framebuffer, colour texture and depth renderbuffer. */
+    private int framebufferId = -1, textureId = -1, depthId = -1;
+    
+    /** Whether the texture must be reallocated before use. */
+    private boolean resized = true;
+    
+    /**
+     * Create a new render texture.
+     * @param width of the texture (pixels).
+     * @param height of the texture (pixels).
+     */
+    public RenderTexture(int width, int height) {
+        setSize(width, height);
+        
+        //Ready at once, as its buffers are allocated on demand when first used.
+        getFuture().complete(this);
+    }
+    
+    /**
+     * Resize the texture, discarding its contents.
+     * @param width of the texture (pixels).
+     * @param height of the texture (pixels).
+     * @return this texture.
+     */
+    public RenderTexture setSize(int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if(width != this.width || height != this.height) resized = true;
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+    
+    @Override
+    public int getTextureId() {
+        if(resized) allocate();
+        return textureId;
+    }
+    
+    @Override
+    public int getWidth() { return width; }
+    
+    @Override
+    public int getHeight() { return height; }
+    
+    //Rendered rows are stored bottom-to-top, so textures are flipped vertically.
+    @Override
+    public float getMinV() { return 1.0F; }
+    
+    @Override
+    public float getMaxV() { return 0.0F; }
+    
+    @Override
+    public boolean isOpaque() { return false; }
+    
+    //Contents are blended over transparency, so are premultiplied by alpha.
+    @Override
+    public boolean isPremultiplied() { return true; }
+    
+    /** @return the GPU memory used by the colour and depth buffers (bytes). */
+    @Override
+    public long getMemory() {
+        return framebufferId == -1 ? 0 : 8L * width * height;
+    }
+    
+    /**
+     * Redirect rendering into this texture, covering the whole texture.
+     * The caller must restore the viewport once done.
+     */
+    public void bind() {
+        if(resized) allocate();
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+        glViewport(0, 0, width, height);
+    }
+    
+    /**
+     * Restore rendering to the window.
+     */
+    public static void unbind() {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+    
+    @Override
+    public boolean isUploaded() { return framebufferId != -1; }
+    
+    /**
+     * Delete the framebuffer and its attachments upon completion.
+     */
+    @Override
+    public void destroy() {
+        if(framebufferId != -1) glDeleteFramebuffers(framebufferId);
+        if(textureId != -1) glDeleteTextures(textureId);
+        if(depthId != -1) glDeleteRenderbuffers(depthId);
+        framebufferId = textureId = depthId = -1;
+        resized = true;
+    }
+    
+    /**
+     * Create the framebuffer, with colour texture and depth renderbuffer attachments.
+     */
+    private void allocate() {
+        
+        if(framebufferId == -1) {
+            framebufferId = glGenFramebuffers();
+            textureId = glGenTextures();
+            depthId = glGenRenderbuffers();
+        }
+        
+        //Colour attachment, sampled when drawn.
+        glBindTexture(GL_TEXTURE_2D, textureId);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height,
+                0, GL_RGBA, GL_UNSIGNED_BYTE, 0);
+        glBindTexture(GL_TEXTURE_2D, 0);
+        
+        //Depth attachment, so tiles are ordered as in the window.
+        glBindRenderbuffer(GL_RENDERBUFFER, depthId);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0,
+                GL_TEXTURE_2D, textureId, 0);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT,
+                GL_RENDERBUFFER, depthId);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        resized = false;
+    }
+}
\ No newline at end of file
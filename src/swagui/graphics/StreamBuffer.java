@@ -0,0 +1,214 @@
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * A ring buffer for streaming per-frame data to the GPU.
+ * The buffer is split into regions, one of which is written each frame.
+ * Each region is guarded by a fence, so a region is only rewritten once the
+ * GPU has finished reading it, and writing never stalls on a pending draw.
+ * Uses a persistently mapped buffer where ARB_buffer_storage is available,
+ * otherwise falls back to orphaning the buffer each time the ring wraps.
+ * @author Alec Dorrington
+ */
+public class StreamBuffer {
+    
+    /** Alignment of each region, sufficient for any buffer binding offset. */
+    private static final int ALIGNMENT = 256;
+    
+    /** Flags for mapping a persistent buffer. */
+    private static final int PERSISTENT_FLAGS =
+            GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+    
+    /** The buffer target to which the buffer is bound. */
+    private final int target;
+    
+    /** The number of regions in the ring. */
+    private final int numRegions;
+    
+    /** The size of each region (bytes). */
+    private long regionSize;
+    
+    /** The ID of the buffer. */
+    private int bufferId = -1;
+    
+    /** Whether the buffer is persistently mapped. */
+    private boolean persistent;
+    
+    /** The mapped region of the buffer currently being written. */
+    private ByteBuffer mapped;
+    
+    /** Views of each region of the persistently mapped buffer. */
+    private ByteBuffer[] regions;
+    
+    /** Fences guarding each region (0 if not in use). */
+    private long[] fences;
+    
+    /** The index of the region currently being written. */
+    private int region = 0;
+    
+    /** The number of times the CPU waited for the GPU to release a region. */
+    private long stalls = 0;
+    
+    /**
+     * Create a new stream buffer.
+     * @param target GL_ARRAY_BUFFER, GL_SHADER_STORAGE_BUFFER, etc.
+     * @param regionSize initial size of each region (bytes).
+     * @param numRegions number of regions, typically 3 for triple buffering.
+     */
+    public StreamBuffer(int target, long regionSize, int numRegions) {
+        this.target = target;
+        this.numRegions = numRegions;
+        fences = new long[numRegions];
+        regions = new ByteBuffer[numRegions];
+        allocate(regionSize);
+    }
+    
+    /** @return the ID of the buffer. */
+    public int getBufferId() { return bufferId; }
+    
+    /** @return whether the buffer is persistently mapped. */
+    public boolean isPersistent() { return persistent; }
+    
+    /** @return the offset of the region currently being written (bytes). */
+    public long getOffset() { return region * regionSize; }
+    
+    /** @return the number of times the CPU waited for the GPU. */
+    public long getStalls() { return stalls; }
+    
+    /**
+     * Map the next region of the buffer for writing.
+     * The buffer is left bound to its target.
+     * @param size of the data to be written (bytes).
+     * @return a buffer over the mapped region, at least as large as requested.
+     */
+    public ByteBuffer map(long size) {
+        
+        //Grow regions if they are too small.
+        if(size > regionSize) {
+            destroy();
+            allocate(Math.max(size, regionSize * 2));
+        }
+        glBindBuffer(target, bufferId);
+        
+        if(persistent) {
+            
+            //Wait for the GPU to finish reading this region.
+            awaitFence(region);
+            mapped = regions[region];
+        
+        } else {
+            
+            //Orphan the buffer upon wrapping, rather than waiting.
+            if(region == 0) {
+                glBufferData(target, regionSize * numRegions, GL_STREAM_DRAW);
+            }
+            mapped = glMapBufferRange(target, getOffset(), regionSize,
+                    GL_MAP_WRITE_BIT | GL_MAP_UNSYNCHRONIZED_BIT
+                    | GL_MAP_INVALIDATE_RANGE_BIT, mapped);
+        }
+        mapped.clear();
+        return mapped;
+    }
+    
+    /**
+     * Finish writing the current region. The buffer is left bound to its target.
+     */
+    public void unmap() {
+        glBindBuffer(target, bufferId);
+        if(!persistent) glUnmapBuffer(target);
+    }
+    
+    /**
+     * Fence the current region once all draws reading it have been issued,
+     * and advance to the next region.
+     */
+    public void fence() {
+        
+        if(persistent) {
+            if(fences[region] != 0) glDeleteSync(fences[region]);
+            fences[region] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        region = (region + 1) % numRegions;
+    }
+    
+    /**
+     * Delete the buffer upon completion.
+     */
+    public void destroy() {
+        
+        for(int i = 0; i < numRegions; i++) {
+            if(fences[i] != 0) glDeleteSync(fences[i]);
+            fences[i] = 0;
+        }
+        if(persistent) {
+            glBindBuffer(target, bufferId);
+            glUnmapBuffer(target);
+            glBindBuffer(target, 0);
+        }
+        glDeleteBuffers(bufferId);
+        bufferId = -1;
+        mapped = null;
+    }
+    
+    /**
+     * Create the buffer, persistently mapped where supported.
+     * @param regionSize minimum size of each region (bytes).
+     */
+    private void allocate(long regionSize) {
+        
+        this.regionSize = (regionSize + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        long size = this.regionSize * numRegions;
+        region = 0;
+        
+        GLCapabilities caps = GL.getCapabilities();
+        persistent = caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+        
+        bufferId = glGenBuffers();
+        glBindBuffer(target, bufferId);
+        
+        if(persistent) {
+            
+            //Immutable storage, mapped once for the lifetime of the buffer.
+            glBufferStorage(target, size, PERSISTENT_FLAGS);
+            ByteBuffer buffer = glMapBufferRange(target, 0, size, PERSISTENT_FLAGS);
+            for(int i = 0; i < numRegions; i++) {
+                buffer.limit((int) ((i+1) * this.regionSize))
+                    .position((int) (i * this.regionSize));
+                regions[i] = buffer.slice().order(buffer.order());
+            }
+        
+        } else {
+            glBufferData(target, size, GL_STREAM_DRAW);
+        }
+        glBindBuffer(target, 0);
+    }
+    
+    /**
+     * Wait until the GPU has finished reading a region.
+     * @param region index of the region.
+     */
+    private void awaitFence(int region) {
+        
+        if(fences[region] == 0) return;
+        
+        int status = glClientWaitSync(fences[region], 0, 0);
+        if(status == GL_TIMEOUT_EXPIRED) {
+            stalls++;
+            do {
+                status = glClientWaitSync(fences[region],
+                        GL_SYNC_FLUSH_COMMANDS_BIT, 1_000_000);
+            } while(status == GL_TIMEOUT_EXPIRED);
+        }
+        glDeleteSync(fences[region]);
+        fences[region] = 0;
+    }
+}
\ No newline at end of file
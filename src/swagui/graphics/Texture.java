@@ -1,122 +1,482 @@
-package swagui.graphics;
-
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL30.*;
-
-import java.awt.image.BufferedImage;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.ByteBuffer;
-
-import javax.imageio.ImageIO;
-
-import org.lwjgl.BufferUtils;
-
-/**
- * Texture for rendering.
- * @author Alec Dorrington
- */
-public class Texture {
-    
-    /** Image file from which texture is sourced. */
-    private BufferedImage image;
-    
-    /** Buffer containing image pixel data. */
-    private ByteBuffer buffer;
-    
-    /** ID of texture. */
-    private int textureId = -1;
-    
-    /** Whether the texture is fully opaque. */
-    private boolean opaque = false;
-    
-    /**
-     * Load a new texture from file.
-     * @param fileName of image.
-     */
-    public Texture(String imageName) {
-        loadPng(imageName);
-    }
-    
-    /**
-     * @return ID of this texture.
-     */
-    public int getTextureId() {
-        if(textureId == -1) createTexture();
-        return textureId;
-    }
-    
-    /**
-     * @return Whether the texture is fully opaque.
-     */
-    public boolean isOpaque() { return opaque; }
-    
-    /**
-     * Load a texture from PNG file into byte buffer.
-     * @param imageName name of image to load, from class loader or file.
-     */
-    private void loadPng(String imageName) {
-        
-        try {
-            
-            //Load resource from class loader or file.
-            InputStream stream = getClass().getClassLoader()
-                    .getResourceAsStream(imageName);
-            if(stream == null) stream = new FileInputStream(imageName);
-            image = ImageIO.read(stream);
-            
-        } catch(IOException e) {
-            e.printStackTrace();
-        }
-        
-        //Copy pixels into array.
-        int[] pixels = new int[image.getWidth() * image.getHeight()];
-        image.getRGB(0, 0, image.getWidth(), image.getHeight(),
-                pixels, 0, image.getWidth());
-        
-        buffer = BufferUtils.createByteBuffer(
-                image.getWidth() * image.getHeight() * 4);
-        
-        //Load array into buffer.
-        for(int y = 0; y < image.getHeight(); y++) {
-            for(int x = 0; x < image.getWidth(); x++) {
-                int pixel = pixels[x + y * image.getWidth()];
-                buffer.put((byte) ((pixel >> 16) & 0xFF)); //Red
-                buffer.put((byte) ((pixel >> 8) & 0xFF));  //Green
-                buffer.put((byte) (pixel & 0xFF));         //Blue
-                buffer.put((byte) (pixel >> 24));          //Alpha
-            }
-        }
-        
-        buffer.flip();
-    }
-    
-    /**
-     * Create an OpenGL texture from a byte buffer.
-     * @param image which was loaded.
-     * @param buffer of pixels values in image.
-     * @return the ID of the texture.
-     */
-    private void createTexture() {
-        
-        //Create new texture.
-        textureId = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, textureId);
-        
-        //Clamping.
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
-        
-        //Filtering.
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR_MIPMAP_NEAREST);
-        
-        //Load pixel buffer into texture.
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, image.getWidth(),
-                image.getHeight(), 0, GL_RGBA, GL_UNSIGNED_BYTE, buffer);
-        
-        //Generate mipmap pyramid.
-        glGenerateMipmap(GL_TEXTURE_2D);
-    }
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Texture for rendering.
+ * @author Alec Dorrington
+ */
+public class Texture {
+    
+    /** Images with at least this many pixels are converted in parallel. */
+    private static final int PARALLEL_PIXELS = 1 << 20;
+    
+    /** Number of rows converted together in each parallel task. */
+    private static final int BAND_HEIGHT = 64;
+    
+    /** Name of the image file from which texture is sourced. */
+    private volatile String name;
+    
+    /** Size of the texture (pixels). */
+    private int width, height;
+    
+    /** Buffer containing image pixel data, released once uploaded. */
+    private ByteBuffer buffer;
+    
+    /** Whether to keep pixel data in memory once uploaded. */
+    private boolean retained = false;
+    
+    /** ID of texture. */
+    private int textureId = -1;
+    
+    /** Whether the texture is fully opaque. */
+    private boolean opaque = false;
+    
+    /** The atlas page into which the texture is packed, if any. */
+    private TextureAtlas.Page page;
+    
+    /** The position of the texture within its atlas page (pixels). */
+    private int atlasX, atlasY;
+    
+    /** The array texture into which the texture is stacked, if any. */
+    private TextureArray array;
+    
+    /** The layer of the texture within its array (-1 if none). */
+    private int layer = -1;
+    
+    /** The frame in which the texture was last rendered, for residency management. */
+    long lastUsed = -1;
+    
+    /** Whether the texture is tracked as resident on the GPU. */
+    boolean resident = false;
+    
+    /** Completed once the texture is ready to be rendered. */
+    private final CompletableFuture<Texture> loaded = new CompletableFuture<>();
+    
+    /** Whether the texture is being loaded again, having been evicted from the GPU. */
+    private volatile boolean reloading = false;
+    
+    /**
+     * Load a new texture from file.
+     * @param fileName of image.
+     */
+    public Texture(String imageName) {
+        loadPng(imageName);
+        loaded.complete(this);
+    }
+    
+    /**
+     * Create a texture whose contents are provided by a subclass.
+     */
+    protected Texture() {}
+    
+    /**
+     * @return ID of this texture (-1 if not yet ready).
+     */
+    public int getTextureId() {
+        if(page != null) return page.getTextureId();
+        if(array != null) return array.getTextureId();
+        if(textureId == -1 && isReady()) createTexture();
+        return textureId;
+    }
+    
+    /** @return name of the image file from which the texture is sourced. */
+    public String getName() { return name; }
+    
+    /**
+     * Name a texture before it is loaded asynchronously.
+     * @param name of the image file from which the texture is sourced.
+     */
+    void setName(String name) { this.name = name; }
+    
+    /** @return width of the texture (pixels). */
+    public int getWidth() { return width; }
+    
+    /** @return height of the texture (pixels). */
+    public int getHeight() { return height; }
+    
+    /** @return whether pixel data is kept in memory once uploaded. */
+    public boolean isRetained() { return retained; }
+    
+    /**
+     * Set whether to keep pixel data in memory once uploaded. Otherwise,
+     * it is released after upload, and decoded again if ever needed.
+     * @param retained whether to keep pixel data (default false).
+     * @return this texture.
+     */
+    public Texture setRetained(boolean retained) {
+        this.retained = retained;
+        return this;
+    }
+    
+    /** @return whether the texture is currently uploaded to the GPU. */
+    public boolean isUploaded() { return textureId != -1; }
+    
+    /**
+     * Estimate the GPU memory used by the texture, including mipmaps.
+     * @return memory used by the texture (bytes, 0 if not uploaded).
+     */
+    public long getMemory() {
+        return textureId == -1 ? 0 : 4L * width * height * 4 / 3;
+    }
+    
+    /**
+     * Delete the texture from the GPU upon completion.
+     * If used again, it is decoded and uploaded once more.
+     */
+    public void destroy() {
+        if(textureId != -1) glDeleteTextures(textureId);
+        textureId = -1;
+    }
+    
+    /** @return left edge of the texture within its atlas page (0-1). */
+    public float getMinU() {
+        return page == null ? 0.0F : (float) atlasX / page.getWidth();
+    }
+    
+    /** @return top edge of the texture within its atlas page (0-1). */
+    public float getMinV() {
+        return page == null ? 0.0F : (float) atlasY / page.getHeight();
+    }
+    
+    /** @return right edge of the texture within its atlas page (0-1). */
+    public float getMaxU() {
+        return page == null ? 1.0F : (float) (atlasX + getWidth()) / page.getWidth();
+    }
+    
+    /** @return bottom edge of the texture within its atlas page (0-1). */
+    public float getMaxV() {
+        return page == null ? 1.0F : (float) (atlasY + getHeight()) / page.getHeight();
+    }
+    
+    /** @return whether the texture is packed into an atlas. */
+    public boolean isAtlased() { return page != null; }
+    
+    /** @return whether the texture is stacked into an array texture. */
+    public boolean isArrayed() { return array != null; }
+    
+    /** @return the layer of the texture within its array texture (-1 if none). */
+    public int getArrayLayer() { return layer; }
+    
+    /** @return buffer containing image pixel data (RGBA), decoding it if released. */
+    ByteBuffer getPixels() {
+        if(buffer == null && name != null) loadPng(name);
+        return buffer;
+    }
+    
+    /**
+     * Set the pixel data of the texture, as decoded elsewhere.
+     * @param pixels buffer containing image pixel data (RGBA).
+     * @param width of the texture (pixels).
+     * @param height of the texture (pixels).
+     * @param opaque whether the texture is fully opaque.
+     */
+    void setPixels(ByteBuffer pixels, int width, int height, boolean opaque) {
+        buffer = pixels;
+        this.width = width;
+        this.height = height;
+        this.opaque = opaque;
+    }
+    
+    /**
+     * Release pixel data, unless retained, once it has been copied elsewhere.
+     */
+    void releasePixels() {
+        if(!retained) buffer = null;
+    }
+    
+    /**
+     * Place this texture within an atlas page, deleting any standalone
+     * texture already uploaded, which would otherwise never be used or deleted.
+     * @param page into which the texture is packed.
+     * @param x left edge of the texture within the page (pixels).
+     * @param y top edge of the texture within the page (pixels).
+     */
+    void setAtlasRegion(TextureAtlas.Page page, int x, int y) {
+        deleteStandalone();
+        this.page = page;
+        atlasX = x;
+        atlasY = y;
+    }
+    
+    /**
+     * Place this texture within a layer of an array texture, deleting any
+     * standalone texture already uploaded, as when placed in an atlas.
+     * @param array into which the texture is stacked.
+     * @param layer of the texture within the array.
+     */
+    void setArrayLayer(TextureArray array, int layer) {
+        deleteStandalone();
+        this.array = array;
+        this.layer = layer;
+    }
+    
+    /**
+     * Delete the texture uploaded on its own, if any, once it is packed elsewhere.
+     */
+    private void deleteStandalone() {
+        if(textureId != -1) glDeleteTextures(textureId);
+        textureId = -1;
+    }
+    
+    /**
+     * @return Whether the texture is fully opaque.
+     */
+    public boolean isOpaque() { return opaque; }
+    
+    /**
+     * @return whether the colour of each pixel is premultiplied by its alpha,
+     * as for textures rendered into with blending.
+     */
+    public boolean isPremultiplied() { return false; }
+    
+    /**
+     * Whether the texture is ready to be rendered. Textures loaded
+     * asynchronously are not ready until decoded and uploaded; until then,
+     * tiles are rendered untextured, in their colour, as a placeholder.
+     * @return whether the texture is ready.
+     */
+    public boolean isReady() {
+        return loaded.isDone() && !loaded.isCompletedExceptionally() && !reloading;
+    }
+    
+    /** @return whether the texture is being loaded, or loaded again after eviction. */
+    boolean isLoading() { return !loaded.isDone() || reloading; }
+    
+    /**
+     * Mark the texture as being loaded again, after eviction from the GPU.
+     * It isn't ready to be rendered until uploaded once more.
+     */
+    void setReloading() { reloading = true; }
+    
+    /**
+     * @return a future completed once the texture is ready to be rendered,
+     * or completed exceptionally if it failed to load.
+     */
+    public CompletableFuture<Texture> getFuture() { return loaded; }
+    
+    /**
+     * Decode a texture from PNG file, for loading asynchronously.
+     * @param imageName name of image to load, from class loader or file.
+     */
+    void decode(String imageName) {
+        loadPng(imageName);
+    }
+    
+    /**
+     * Mark the texture as having failed to load.
+     * @param cause of the failure.
+     */
+    void fail(Throwable cause) {
+        loaded.completeExceptionally(cause);
+    }
+    
+    /**
+     * Mark the texture as discarded while loading, so it is never uploaded.
+     */
+    void cancel() {
+        reloading = false;
+        loaded.completeExceptionally(new CancellationException());
+    }
+    
+    /**
+     * Create an OpenGL texture from the pixel buffer object currently bound
+     * to GL_PIXEL_UNPACK_BUFFER, into which the pixels have been copied.
+     * The texture is then ready to be rendered.
+     */
+    void upload() {
+        createTexture(true);
+        reloading = false;
+        loaded.complete(this);
+    }
+    
+    /**
+     * Load a texture from PNG file into byte buffer.
+     * @param imageName name of image to load, from class loader or file.
+     */
+    private void loadPng(String imageName) {
+        
+        //Map pre-decoded pixels from a mounted asset pack or disk cache.
+        name = imageName;
+        if(AssetPack.findTexture(this, imageName)) return;
+        if(DecodedCache.read(this, imageName)) return;
+        BufferedImage image = null;
+        
+        //Load resource from class loader or file.
+        InputStream resource = getClass().getClassLoader()
+                .getResourceAsStream(imageName);
+        try(InputStream stream = resource != null ? resource
+                : new FileInputStream(imageName)) {
+            image = ImageIO.read(stream);
+            
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+        
+        width = image.getWidth();
+        height = image.getHeight();
+        buffer = BufferUtils.createByteBuffer(width * height * 4);
+        
+        //Pixels are written as whole RGBA ints, big-endian so red comes first.
+        IntBuffer pixels = buffer.duplicate()
+                .order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        
+        //Convert bands of rows, in parallel for large images.
+        BufferedImage source = image;
+        int rows = height, bands = (rows + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        IntStream range = IntStream.range(0, bands);
+        if((long) width * height >= PARALLEL_PIXELS) range = range.parallel();
+        
+        //Accumulate alpha to detect opacity.
+        int alpha = range
+            .map(b -> convert(source, pixels, b * BAND_HEIGHT,
+                    Math.min(rows, (b+1) * BAND_HEIGHT)))
+            .reduce(0xFF, (a1, a2) -> a1 & a2);
+        opaque = alpha == 0xFF;
+        
+        DecodedCache.write(imageName, buffer, width, height, opaque);
+    }
+    
+    /**
+     * Convert a band of rows of an image to RGBA. Common image types are
+     * read directly from their raster, others through getRGB() row-by-row.
+     * @param image to convert.
+     * @param dest buffer into which RGBA pixels are written.
+     * @param minY first row to convert.
+     * @param maxY row after the last to convert.
+     * @return the bitwise AND of the alpha of each pixel.
+     */
+    static int convert(BufferedImage image, IntBuffer dest, int minY, int maxY) {
+        
+        int width = image.getWidth(), alpha = 0xFF;
+        int from = minY * width, to = maxY * width;
+        
+        //Read raster directly only where it has the standard layout.
+        DataBuffer data = image.getRaster().getDataBuffer();
+        int bands = image.getRaster().getNumBands();
+        int type = data.getSize() == width * image.getHeight()
+                * (data instanceof DataBufferByte ? bands : 1)
+                ? image.getType() : BufferedImage.TYPE_CUSTOM;
+        
+        switch(type) {
+            
+            //Bytes in ABGR order.
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] bytes = ((DataBufferByte) data).getData();
+                for(int i = from, j = 4*from; i < to; i++, j += 4) {
+                    int a = bytes[j] & 0xFF;
+                    dest.put(i, (bytes[j+3] & 0xFF) << 24 | (bytes[j+2] & 0xFF) << 16
+                            | (bytes[j+1] & 0xFF) << 8 | a);
+                    alpha &= a;
+                }
+                return alpha;
+            }
+            
+            //Bytes in BGR order.
+            case BufferedImage.TYPE_3BYTE_BGR: {
+                byte[] bytes = ((DataBufferByte) data).getData();
+                for(int i = from, j = 3*from; i < to; i++, j += 3) {
+                    dest.put(i, (bytes[j+2] & 0xFF) << 24 | (bytes[j+1] & 0xFF) << 16
+                            | (bytes[j] & 0xFF) << 8 | 0xFF);
+                }
+                return alpha;
+            }
+            
+            //Ints in ARGB order.
+            case BufferedImage.TYPE_INT_ARGB: {
+                int[] ints = ((DataBufferInt) data).getData();
+                for(int i = from; i < to; i++) {
+                    int pixel = ints[i];
+                    dest.put(i, pixel << 8 | pixel >>> 24);
+                    alpha &= pixel >>> 24;
+                }
+                return alpha;
+            }
+            
+            //Ints in RGB order.
+            case BufferedImage.TYPE_INT_RGB: {
+                int[] ints = ((DataBufferInt) data).getData();
+                for(int i = from; i < to; i++) {
+                    dest.put(i, ints[i] << 8 | 0xFF);
+                }
+                return alpha;
+            }
+            
+            //Other types (indexed, 16-bit, etc.), converted to ARGB a row at a time.
+            default: {
+                int[] row = new int[width];
+                for(int y = minY; y < maxY; y++) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for(int x = 0; x < width; x++) {
+                        int pixel = row[x];
+                        dest.put(y * width + x, pixel << 8 | pixel >>> 24);
+                        alpha &= pixel >>> 24;
+                    }
+                }
+                return alpha;
+            }
+        }
+    }
+    
+    /**
+     * Create an OpenGL texture from a byte buffer.
+     */
+    private void createTexture() { createTexture(false); }
+    
+    /**
+     * Create an OpenGL texture.
+     * @param unpackBuffer whether to source pixels from the bound pixel buffer
+     * object, else directly from the byte buffer.
+     */
+    private void createTexture(boolean unpackBuffer) {
+        
+        //Decode the image again if its pixels were released.
+        if(!unpackBuffer) getPixels();
+        
+        //Create new texture.
+        textureId = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, textureId);
+        
+        //Clamping.
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+        
+        //Filtering.
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR_MIPMAP_NEAREST);
+        
+        //Load pixel buffer into texture.
+        if(unpackBuffer) {
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width,
+                    height, 0, GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+        } else {
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width,
+                    height, 0, GL_RGBA, GL_UNSIGNED_BYTE, buffer);
+        }
+        
+        //Generate mipmap pyramid.
+        glGenerateMipmap(GL_TEXTURE_2D);
+        
+        //Pixels are no longer needed once on the GPU.
+        releasePixels();
+    }
 }
\ No newline at end of file
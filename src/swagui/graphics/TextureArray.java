@@ -0,0 +1,156 @@
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Stacks many textures of the same size into the layers of a single
+ * array texture, so that tiles with different textures may be rendered
+ * in a single batch. Unlike an atlas, each texture is sampled from its
+ * own layer, so it can't bleed into its neighbours, and may be mipmapped
+ * without padding. Layers are added on demand.
+ * @author Alec Dorrington
+ */
+public class TextureArray {
+    
+    /** Initial number of layers for which space is allocated. */
+    private static final int INITIAL_LAYERS = 16;
+    
+    /** Size of each layer (pixels). */
+    private final int width, height;
+    
+    /** Maximum number of layers. */
+    private final int maxLayers;
+    
+    /** Pixels of all layers (RGBA). */
+    private ByteBuffer pixels;
+    
+    /** Number of layers in use, and for which space is allocated. */
+    private int numLayers = 0, capacity = INITIAL_LAYERS;
+    
+    /** Number of layers which have been uploaded. */
+    private int uploaded = 0;
+    
+    /** ID of the array texture. */
+    private int textureId = -1;
+    
+    /** Whether the texture must be reallocated. */
+    private boolean resized = true;
+    
+    /**
+     * Create a new texture array, of at most 256 layers
+     * (the least supported by any OpenGL 3 driver).
+     * @param width of each texture (pixels).
+     * @param height of each texture (pixels).
+     */
+    public TextureArray(int width, int height) { this(width, height, 256); }
+    
+    /**
+     * Create a new texture array.
+     * @param width of each texture (pixels).
+     * @param height of each texture (pixels).
+     * @param maxLayers maximum number of textures.
+     */
+    public TextureArray(int width, int height, int maxLayers) {
+        this.width = width;
+        this.height = height;
+        this.maxLayers = maxLayers;
+        pixels = BufferUtils.createByteBuffer(capacity * width * height * 4);
+    }
+    
+    /**
+     * Add a texture to the next layer of the array.
+     * If the texture was already uploaded on its own, that texture is deleted,
+     * so this must then be called on the render thread.
+     * @param texture to add.
+     * @return whether the texture was added (false if its size differs, or the array is full).
+     */
+    public boolean add(Texture texture) {
+        
+        if(texture.getWidth() != width || texture.getHeight() != height) return false;
+        if(numLayers == maxLayers) return false;
+        
+        //Grow the array if it is full.
+        int layerSize = width * height * 4;
+        if(numLayers == capacity) {
+            capacity = Math.min(capacity * 2, maxLayers);
+            ByteBuffer newPixels = BufferUtils.createByteBuffer(capacity * layerSize);
+            memCopy(memAddress(pixels), memAddress(newPixels), (long) numLayers * layerSize);
+            pixels = newPixels;
+            resized = true;
+        }
+        
+        //Copy pixels into the layer.
+        memCopy(memAddress(texture.getPixels()),
+                memAddress(pixels) + (long) numLayers * layerSize, layerSize);
+        texture.releasePixels();
+        texture.setArrayLayer(this, numLayers++);
+        return true;
+    }
+    
+    /** @return the width of each layer (pixels). */
+    public int getWidth() { return width; }
+    
+    /** @return the height of each layer (pixels). */
+    public int getHeight() { return height; }
+    
+    /** @return the number of layers in use. */
+    public int getNumLayers() { return numLayers; }
+    
+    /**
+     * Estimate the GPU memory used by the array, including mipmaps.
+     * @return memory used by the array (bytes, 0 if not uploaded).
+     */
+    public long getMemory() {
+        return textureId == -1 ? 0 : 4L * width * height * capacity * 4 / 3;
+    }
+    
+    /**
+     * @return ID of the array texture, loading any new layers.
+     */
+    int getTextureId() {
+        
+        if(textureId == -1) textureId = glGenTextures();
+        if(!resized && uploaded == numLayers) return textureId;
+        
+        glBindTexture(GL_TEXTURE_2D_ARRAY, textureId);
+        if(resized) {
+            
+            //Clamping and filtering (layers are separate, so may be mipmapped).
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_NEAREST);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            glTexImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_RGBA8, width, height, capacity,
+                    0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+        } else {
+            
+            //Upload only the new layers.
+            ByteBuffer layers = pixels.duplicate();
+            layers.position(uploaded * width * height * 4);
+            glTexSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, uploaded, width, height,
+                    numLayers - uploaded, GL_RGBA, GL_UNSIGNED_BYTE, layers);
+        }
+        
+        //Generate mipmaps of each layer.
+        glGenerateMipmap(GL_TEXTURE_2D_ARRAY);
+        resized = false;
+        uploaded = numLayers;
+        return textureId;
+    }
+    
+    /**
+     * Delete the array texture upon completion.
+     */
+    public void destroy() {
+        if(textureId != -1) glDeleteTextures(textureId);
+        textureId = -1;
+        resized = true;
+    }
+}
\ No newline at end of file
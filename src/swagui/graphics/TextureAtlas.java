@@ -0,0 +1,332 @@
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Packs many textures into a few shared atlas pages,
+ * so that tiles with different textures may be rendered in a single batch.
+ * Each texture added to the atlas samples its own sub-rectangle of a page.
+ * Pages are packed using a skyline packer, and grow or are added on demand.
+ * @author Alec Dorrington
+ */
+public class TextureAtlas {
+    
+    /** Initial size of each page (pixels). */
+    private static final int INITIAL_SIZE = 512;
+    
+    /** Border around each texture, filled by extruding its edges (pixels). */
+    private static final int PADDING = 1;
+    
+    /** Maximum size of each page (pixels). */
+    private final int maxSize;
+    
+    /** Pages of the atlas. */
+    private List<Page> pages = new ArrayList<>();
+    
+    /** Total time spent packing textures (nanoseconds). */
+    private long packTime = 0;
+    
+    /** Total area of packed textures, including padding (pixels). */
+    private long packedArea = 0;
+    
+    /**
+     * Create a new texture atlas, with pages of at most 2048x2048 pixels.
+     */
+    public TextureAtlas() { this(2048); }
+    
+    /**
+     * Create a new texture atlas.
+     * @param maxSize maximum width and height of each page (pixels).
+     */
+    public TextureAtlas(int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    /**
+     * Pack a texture into the atlas.
+     * If the texture was already uploaded on its own, that texture is deleted,
+     * so this must then be called on the render thread.
+     * @param texture to add.
+     * @return whether the texture was packed (false if it is too large).
+     */
+    public boolean add(Texture texture) {
+        
+        long start = System.nanoTime();
+        int width = texture.getWidth() + 2*PADDING;
+        int height = texture.getHeight() + 2*PADDING;
+        if(width > maxSize || height > maxSize) return false;
+        
+        //Place in the first page with space, growing pages as required.
+        boolean packed = false;
+        for(Page page : pages) {
+            if(packed = page.pack(texture, width, height)) break;
+        }
+        
+        //Otherwise, start a new page.
+        if(!packed) {
+            Page page = new Page(Math.min(INITIAL_SIZE, maxSize));
+            pages.add(page);
+            packed = page.pack(texture, width, height);
+        }
+        
+        //Only textures which fit count towards the occupancy.
+        if(packed) packedArea += width * height;
+        packTime += System.nanoTime() - start;
+        return packed;
+    }
+    
+    /** @return the number of pages in the atlas. */
+    public int getNumPages() { return pages.size(); }
+    
+    /** @return total time spent packing textures (nanoseconds). */
+    public long getPackTime() { return packTime; }
+    
+    /** @return the fraction of page area occupied by textures (0-1). */
+    public float getOccupancy() {
+        
+        long area = 0;
+        for(Page page : pages) {
+            area += (long) page.width * page.height;
+        }
+        return area == 0 ? 0.0F : (float) packedArea / area;
+    }
+    
+    /**
+     * Delete the textures of all pages upon completion.
+     */
+    public void destroy() {
+        pages.forEach(Page::destroy);
+    }
+    
+    /**
+     * A single texture of the atlas, packed with a skyline.
+     */
+    class Page {
+        
+        /** Size of the page (pixels). */
+        private int width, height;
+        
+        /** Pixels of the page (RGBA). */
+        private ByteBuffer pixels;
+        
+        /** Segments of the skyline, left-to-right, each as {x, y, width}. */
+        private List<int[]> skyline = new ArrayList<>();
+        
+        /** ID of the texture of the page. */
+        private int textureId = -1;
+        
+        /** Whether the texture must be resized/reloaded. */
+        private boolean resized = true, dirty = true;
+        
+        /** Rectangles packed since the page was last uploaded, each as {x, y, width, height}. */
+        private List<int[]> packedRegions = new ArrayList<>();
+        
+        /**
+         * Create a new empty page.
+         * @param size initial width and height of the page (pixels).
+         */
+        private Page(int size) {
+            width = height = size;
+            pixels = BufferUtils.createByteBuffer(width * height * 4);
+            skyline.add(new int[] {0, 0, width});
+        }
+        
+        /** @return the width of the page (pixels). */
+        int getWidth() { return width; }
+        
+        /** @return the height of the page (pixels). */
+        int getHeight() { return height; }
+        
+        /**
+         * @return ID of the texture of the page, loading any new textures.
+         */
+        int getTextureId() {
+            
+            if(textureId == -1) textureId = glGenTextures();
+            if(!dirty) return textureId;
+            
+            glBindTexture(GL_TEXTURE_2D, textureId);
+            if(resized) {
+                
+                //Clamping and filtering (mipmaps would bleed across textures).
+                glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+                glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+                glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+                glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+                glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height,
+                        0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+            } else {
+                
+                //Upload only the newly packed rectangles, as rows of the whole page.
+                glPixelStorei(GL_UNPACK_ROW_LENGTH, width);
+                for(int[] region : packedRegions) {
+                    ByteBuffer origin = pixels.duplicate();
+                    origin.position((region[1] * width + region[0]) * 4);
+                    glTexSubImage2D(GL_TEXTURE_2D, 0, region[0], region[1], region[2], region[3],
+                            GL_RGBA, GL_UNSIGNED_BYTE, origin);
+                }
+                glPixelStorei(GL_UNPACK_ROW_LENGTH, 0);
+            }
+            packedRegions.clear();
+            resized = dirty = false;
+            return textureId;
+        }
+        
+        /**
+         * Pack a texture into this page, growing the page if required.
+         * @param texture to pack.
+         * @param w width of the texture, including padding.
+         * @param h height of the texture, including padding.
+         * @return whether the texture was packed.
+         */
+        private boolean pack(Texture texture, int w, int h) {
+            
+            int[] position;
+            while((position = findPosition(w, h)) == null) {
+                if(!grow()) return false;
+            }
+            place(position[0], position[1], w, h);
+            copy(texture, position[0], position[1]);
+            texture.releasePixels();
+            texture.setAtlasRegion(this, position[0] + PADDING, position[1] + PADDING);
+            packedRegions.add(new int[] {position[0], position[1], w, h});
+            dirty = true;
+            return true;
+        }
+        
+        /**
+         * Find the lowest (then left-most) position at which a rectangle fits.
+         * @param w width of the rectangle.
+         * @param h height of the rectangle.
+         * @return the position {x, y}, or null if it doesn't fit.
+         */
+        private int[] findPosition(int w, int h) {
+            
+            int[] best = null;
+            for(int i = 0; i < skyline.size(); i++) {
+                
+                int x = skyline.get(i)[0];
+                if(x + w > width) break;
+                
+                //Rectangle rests on the highest segment beneath it.
+                int y = 0;
+                for(int j = i; j < skyline.size() && skyline.get(j)[0] < x + w; j++) {
+                    y = Math.max(y, skyline.get(j)[1]);
+                }
+                if(y + h > height) continue;
+                if(best == null || y < best[1]) best = new int[] {x, y};
+            }
+            return best;
+        }
+        
+        /**
+         * Raise the skyline over a newly placed rectangle.
+         * @param x left edge of the rectangle.
+         * @param y bottom edge of the rectangle.
+         * @param w width of the rectangle.
+         * @param h height of the rectangle.
+         */
+        private void place(int x, int y, int w, int h) {
+            
+            ListIterator<int[]> it = skyline.listIterator();
+            while(it.hasNext()) {
+                
+                int[] segment = it.next();
+                int end = segment[0] + segment[2];
+                if(end <= x || segment[0] >= x + w) continue;
+                
+                //Remove the part of the segment covered by the rectangle.
+                it.remove();
+                if(segment[0] < x) {
+                    it.add(new int[] {segment[0], segment[1], x - segment[0]});
+                }
+                if(end > x + w) {
+                    it.add(new int[] {x + w, segment[1], end - (x + w)});
+                }
+            }
+            
+            //Insert the top of the rectangle, in order.
+            int index = 0;
+            while(index < skyline.size() && skyline.get(index)[0] < x) index++;
+            skyline.add(index, new int[] {x, y + h, w});
+            
+            //Merge adjacent segments of equal height.
+            it = skyline.listIterator();
+            int[] previous = null;
+            while(it.hasNext()) {
+                int[] segment = it.next();
+                if(previous != null && previous[1] == segment[1]) {
+                    previous[2] += segment[2];
+                    it.remove();
+                } else previous = segment;
+            }
+        }
+        
+        /**
+         * Double the width or height of the page, if below the maximum size.
+         * @return whether the page grew.
+         */
+        private boolean grow() {
+            
+            if(width >= maxSize && height >= maxSize) return false;
+            int oldWidth = width;
+            
+            //Grow the smaller dimension, preferring width.
+            if(width <= height && width < maxSize) {
+                width = Math.min(width * 2, maxSize);
+                skyline.add(new int[] {oldWidth, 0, width - oldWidth});
+            } else {
+                height = Math.min(height * 2, maxSize);
+            }
+            
+            //Copy existing pixels, row-by-row.
+            ByteBuffer newPixels = BufferUtils.createByteBuffer(width * height * 4);
+            long src = memAddress(pixels), dst = memAddress(newPixels);
+            for(int row = 0; row < pixels.capacity() / (oldWidth * 4); row++) {
+                memCopy(src + row * oldWidth * 4L, dst + row * width * 4L, oldWidth * 4L);
+            }
+            pixels = newPixels;
+            resized = dirty = true;
+            return true;
+        }
+        
+        /**
+         * Copy the pixels of a texture into the page, extruding its edges into the padding.
+         * @param texture to copy.
+         * @param x left edge of the padded texture.
+         * @param y top edge of the padded texture.
+         */
+        private void copy(Texture texture, int x, int y) {
+            
+            ByteBuffer src = texture.getPixels();
+            int w = texture.getWidth(), h = texture.getHeight();
+            
+            for(int row = -PADDING; row < h + PADDING; row++) {
+                int srcRow = Math.max(0, Math.min(h - 1, row));
+                for(int col = -PADDING; col < w + PADDING; col++) {
+                    int srcCol = Math.max(0, Math.min(w - 1, col));
+                    pixels.putInt(((y + PADDING + row) * width + x + PADDING + col) * 4,
+                            src.getInt((srcRow * w + srcCol) * 4));
+                }
+            }
+        }
+        
+        /**
+         * Delete the texture of the page.
+         */
+        private void destroy() {
+            if(textureId != -1) glDeleteTextures(textureId);
+            textureId = -1;
+            resized = dirty = true;
+        }
+    }
+}
\ No newline at end of file
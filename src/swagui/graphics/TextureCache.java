@@ -0,0 +1,154 @@
+package swagui.graphics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of textures shared between their users, keyed by resource path.
+ * Each texture is decoded once, however many tiles use it, and is deleted
+ * from the GPU once its last user releases it.
+ * Textures may be acquired and released from any thread, but are only
+ * deleted on the render thread, by collect().
+ * @author Alec Dorrington
+ */
+public class TextureCache {
+    
+    /** Cached textures and their reference counts, by path. */
+    private final Map<String, Entry> entries = new HashMap<>();
+    
+    /** Cached textures and their reference counts, by texture. */
+    private final Map<Texture, Entry> byTexture = new IdentityHashMap<>();
+    
+    /** Textures no longer referenced, to be deleted on the render thread. */
+    private final List<Entry> unused = new ArrayList<>();
+    
+    /** Loader with which textures are acquired asynchronously, if any. */
+    private final TextureLoader loader;
+    
+    /**
+     * Create a new texture cache, which loads textures synchronously.
+     */
+    public TextureCache() { this(null); }
+    
+    /**
+     * Create a new texture cache.
+     * @param loader with which textures are acquired asynchronously (or null).
+     */
+    public TextureCache(TextureLoader loader) {
+        this.loader = loader;
+    }
+    
+    /**
+     * Acquire a texture, loading it only if it isn't already cached.
+     * Each acquisition must be matched by a release.
+     * Loads asynchronously if the cache has a loader.
+     * @param path of the image, from class loader or file.
+     * @return the shared texture.
+     */
+    public synchronized Texture acquire(String path) {
+        
+        Entry entry = entries.get(path);
+        if(entry == null) {
+            Texture texture = loader != null ? loader.load(path) : new Texture(path);
+            entry = new Entry(path, texture);
+            entries.put(path, entry);
+            byTexture.put(texture, entry);
+        }
+        //Revive textures awaiting deletion.
+        if(entry.references++ == 0) unused.remove(entry);
+        return entry.texture;
+    }
+    
+    /**
+     * Release a texture acquired from this cache.
+     * Once it has no remaining users, it is deleted at the next collect().
+     * @param texture to release.
+     */
+    public synchronized void release(Texture texture) {
+        
+        //Found by identity, as textures still loading may not yet be named.
+        Entry entry = byTexture.get(texture);
+        if(entry == null || entry.references == 0) {
+            throw new IllegalStateException("Texture not acquired from cache.");
+        }
+        if(--entry.references == 0) unused.add(entry);
+    }
+    
+    /**
+     * @param path of the image.
+     * @return the number of users of the texture (0 if not cached).
+     */
+    public synchronized int getReferences(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? 0 : entry.references;
+    }
+    
+    /** @return the number of cached textures. */
+    public synchronized int size() { return entries.size(); }
+    
+    /**
+     * Delete textures which are no longer referenced.
+     * Must be called on the render thread.
+     * @return the number of textures deleted.
+     */
+    public synchronized int collect() {
+        
+        int count = unused.size();
+        for(Entry entry : unused) {
+            entries.remove(entry.path);
+            byTexture.remove(entry.texture);
+            delete(entry.texture);
+        }
+        unused.clear();
+        return count;
+    }
+    
+    /**
+     * Delete all cached textures upon completion.
+     * Must be called on the render thread.
+     */
+    public synchronized void destroy() {
+        entries.values().forEach(e -> delete(e.texture));
+        entries.clear();
+        byTexture.clear();
+        unused.clear();
+    }
+    
+    /**
+     * Delete a texture, or have its loader delete it once it finishes loading,
+     * as a texture still loading would otherwise be uploaded after deletion.
+     * @param texture to delete.
+     */
+    private void delete(Texture texture) {
+        if(loader != null && texture.isLoading()) loader.discard(texture);
+        else texture.destroy();
+    }
+    
+    /**
+     * A cached texture and its reference count.
+     */
+    private static class Entry {
+        
+        /** The path of the image. */
+        private final String path;
+        
+        /** The shared texture. */
+        private final Texture texture;
+        
+        /** The number of users of the texture. */
+        private int references = 0;
+        
+        /**
+         * Create a new cache entry.
+         * @param path of the image.
+         * @param texture loaded from the image.
+         */
+        private Entry(String path, Texture texture) {
+            this.path = path;
+            this.texture = texture;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package swagui.graphics;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads textures asynchronously, so that loading never stalls a frame.
+ * Images are decoded on a pool of worker threads, then uploaded on the
+ * render thread through a pixel buffer object, within a time budget per frame.
+ * @author Alec Dorrington
+ */
+public class TextureLoader {
+    
+    /** Worker threads on which images are decoded. */
+    private final ExecutorService workers;
+    
+    /** Textures which have been decoded, awaiting upload. */
+    private final Queue<Texture> decoded = new ConcurrentLinkedQueue<>();
+    
+    /** Textures to be deleted once they finish loading. */
+    private final Queue<Texture> discarded = new ConcurrentLinkedQueue<>();
+    
+    /** Time which may be spent uploading textures each frame (nanoseconds). */
+    private volatile long budget = 2_000_000;
+    
+    /** Action to perform whenever a texture is awaiting upload. */
+    private volatile Runnable onDecode = () -> {};
+    
+    /** ID of the pixel buffer object through which textures are uploaded. */
+    private int pboId = -1;
+    
+    /** Total number of textures uploaded. */
+    private long uploads = 0;
+    
+    /**
+     * Create a new texture loader, with one worker per spare processor.
+     */
+    public TextureLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+    
+    /**
+     * Create a new texture loader.
+     * @param numWorkers number of threads on which to decode images.
+     */
+    public TextureLoader(int numWorkers) {
+        workers = Executors.newFixedThreadPool(numWorkers, r -> {
+            Thread thread = new Thread(r, "TextureLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Begin loading a texture. May be called from any thread.
+     * The texture is returned immediately, and is ready once its future completes.
+     * @param imageName name of image to load, from class loader or file.
+     * @return the texture being loaded.
+     */
+    public Texture load(String imageName) {
+        
+        Texture texture = new Texture();
+        texture.setName(imageName);
+        return load(texture, () -> texture.decode(imageName));
+    }
+    
+    /**
+     * Begin loading a texture whose pixels are provided by a decoder.
+     * @param texture to load.
+     * @param decoder which sets the pixels of the texture, on a worker thread.
+     * @return the texture being loaded.
+     */
+    Texture load(Texture texture, Runnable decoder) {
+        
+        workers.execute(() -> {
+            try {
+                decoder.run();
+                decoded.add(texture);
+                onDecode.run();
+            } catch(RuntimeException e) {
+                texture.fail(e);
+            }
+        });
+        return texture;
+    }
+    
+    /**
+     * Load a texture again after its eviction from the GPU, decoding it
+     * on a worker if its pixels were released. Until it is uploaded once more,
+     * it isn't ready, and so is rendered without texture.
+     * @param texture to load again.
+     */
+    void reload(Texture texture) {
+        texture.setReloading();
+        load(texture, texture::getPixels);
+    }
+    
+    /**
+     * Delete a texture on the render thread, once it is no longer loading.
+     * May be called from any thread.
+     * @param texture to delete.
+     */
+    void discard(Texture texture) {
+        discarded.add(texture);
+    }
+    
+    /**
+     * Set the time which may be spent uploading textures each frame.
+     * At least one texture is uploaded each frame, regardless.
+     * @param budget upload time per frame (nanoseconds, default 2ms).
+     * @return this loader.
+     */
+    public TextureLoader setBudget(long budget) {
+        this.budget = budget;
+        return this;
+    }
+    
+    /**
+     * Perform an action whenever a texture has been decoded and awaits upload,
+     * such as requesting a new frame. Runs on a worker thread.
+     * @param action to perform.
+     * @return this loader.
+     */
+    public TextureLoader onDecode(Runnable action) {
+        onDecode = action;
+        return this;
+    }
+    
+    /** @return whether any textures are awaiting upload. */
+    public boolean isPending() { return !decoded.isEmpty(); }
+    
+    /** @return total number of textures uploaded. */
+    public long getUploads() { return uploads; }
+    
+    /**
+     * Upload decoded textures, until the time budget for this frame is spent,
+     * then delete any discarded textures. Must be called on the render thread.
+     * @return the number of textures uploaded.
+     */
+    public int upload() {
+        
+        long start = System.nanoTime();
+        int count = 0;
+        Texture texture;
+        while((count == 0 || System.nanoTime() - start < budget)
+                && (texture = decoded.poll()) != null) {
+            
+            //Textures discarded while loading are never uploaded.
+            if(discarded.contains(texture)) {
+                texture.cancel();
+                continue;
+            }
+            
+            //Copy pixels into the pixel buffer, orphaning previous contents.
+            ByteBuffer pixels = texture.getPixels();
+            if(pboId == -1) pboId = glGenBuffers();
+            glBindBuffer(GL_PIXEL_UNPACK_BUFFER, pboId);
+            glBufferData(GL_PIXEL_UNPACK_BUFFER, pixels.remaining(), GL_STREAM_DRAW);
+            ByteBuffer mapped = glMapBuffer(GL_PIXEL_UNPACK_BUFFER, GL_WRITE_ONLY);
+            if(mapped != null) {
+                memCopy(memAddress(pixels), memAddress(mapped), pixels.remaining());
+                glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+            } else {
+                glBufferSubData(GL_PIXEL_UNPACK_BUFFER, 0, pixels);
+            }
+            
+            //Create the texture from the pixel buffer.
+            texture.upload();
+            glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+            count++;
+        }
+        uploads += count;
+        
+        //Textures still loading are deleted once uploaded.
+        Iterator<Texture> it = discarded.iterator();
+        while(it.hasNext()) {
+            Texture discard = it.next();
+            if(!discard.isLoading()) {
+                discard.destroy();
+                it.remove();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Stop all workers and delete the pixel buffer upon completion.
+     */
+    public void destroy() {
+        workers.shutdownNow();
+        if(pboId != -1) glDeleteBuffers(pboId);
+        pboId = -1;
+    }
+}
\ No newline at end of file
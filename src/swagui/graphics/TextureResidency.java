@@ -0,0 +1,150 @@
+package swagui.graphics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the GPU memory used by textures within a budget.
+ * Tracks each texture as it is rendered, and when over budget at the end of
+ * a frame, evicts the least-recently-rendered textures from the GPU.
+ * Evicted textures are uploaded again upon their next use, from their
+ * retained pixels or by decoding their source image once more. If a loader
+ * is set, this happens in the background, and they are rendered without
+ * texture until uploaded; otherwise, it happens immediately.
+ * Atlased, arrayed and rendered textures are not managed.
+ * Must only be used on the render thread.
+ * @author Alec Dorrington
+ */
+public class TextureResidency {
+    
+    /** Orders textures from least to most recently rendered. */
+    private static final Comparator<Texture> LRU =
+            Comparator.comparingLong(t -> t.lastUsed);
+    
+    /** Maximum GPU memory to be used by textures (bytes). */
+    private long budget;
+    
+    /** Textures currently resident on the GPU. */
+    private final List<Texture> residents = new ArrayList<>();
+    
+    /** Textures which were evicted, and are yet to be uploaded again. */
+    private final Set<Texture> evicted =
+            Collections.newSetFromMap(new WeakHashMap<>());
+    
+    /** Loader through which evicted textures are loaded again, if any. */
+    private TextureLoader loader;
+    
+    /** The current frame number. */
+    private long frame = 0;
+    
+    /** GPU memory used by resident textures, as of the end of the last frame (bytes). */
+    private long usage = 0;
+    
+    /** Total number of textures evicted, and uploaded again after eviction. */
+    private long evictions = 0, reuploads = 0;
+    
+    /**
+     * Create a new residency manager.
+     * @param budget maximum GPU memory to be used by textures (bytes).
+     */
+    public TextureResidency(long budget) {
+        this.budget = budget;
+    }
+    
+    /** @return maximum GPU memory to be used by textures (bytes). */
+    public long getBudget() { return budget; }
+    
+    /**
+     * @param budget maximum GPU memory to be used by textures (bytes).
+     * @return this manager.
+     */
+    public TextureResidency setBudget(long budget) {
+        this.budget = budget;
+        return this;
+    }
+    
+    /**
+     * Set the loader through which evicted textures are loaded again,
+     * so that they aren't decoded on the render thread.
+     * @param loader with which to load evicted textures (null for none).
+     * @return this manager.
+     */
+    public TextureResidency setLoader(TextureLoader loader) {
+        this.loader = loader;
+        return this;
+    }
+    
+    /** @return GPU memory used by resident textures (bytes). */
+    public long getUsage() { return usage; }
+    
+    /** @return the number of textures resident on the GPU. */
+    public int getResidentCount() { return residents.size(); }
+    
+    /** @return total number of textures evicted. */
+    public long getEvictions() { return evictions; }
+    
+    /** @return total number of textures uploaded again after eviction. */
+    public long getReuploads() { return reuploads; }
+    
+    /**
+     * Record that a texture is being rendered in this frame.
+     * Must be called before the texture ID is used, so re-uploads are counted,
+     * and so evicted textures are loaded again through the loader, if any.
+     * @param texture being rendered.
+     */
+    public void touch(Texture texture) {
+        
+        if(texture.lastUsed == frame) return;
+        texture.lastUsed = frame;
+        if(texture.resident || texture.isAtlased()
+                || texture.isArrayed() || texture.getName() == null) return;
+        
+        texture.resident = true;
+        residents.add(texture);
+        if(evicted.remove(texture)) {
+            reuploads++;
+            if(loader != null) loader.reload(texture);
+        }
+    }
+    
+    /**
+     * Finish the frame, evicting textures until within budget.
+     * Textures rendered in this frame are never evicted.
+     */
+    public void endFrame() {
+        
+        //Measure usage, forgetting textures deleted elsewhere.
+        usage = 0;
+        Iterator<Texture> it = residents.iterator();
+        while(it.hasNext()) {
+            Texture texture = it.next();
+            if(texture.isUploaded()) usage += texture.getMemory();
+            else {
+                texture.resident = false;
+                it.remove();
+            }
+        }
+        
+        //Evict least-recently-rendered textures while over budget.
+        if(usage > budget) {
+            residents.sort(LRU);
+            it = residents.iterator();
+            while(usage > budget && it.hasNext()) {
+                Texture texture = it.next();
+                if(texture.lastUsed == frame) break;
+                usage -= texture.getMemory();
+                texture.destroy();
+                texture.resident = false;
+                evicted.add(texture);
+                evictions++;
+                it.remove();
+            }
+        }
+        frame++;
+    }
+}
\ No newline at end of file
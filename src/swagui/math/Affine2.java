@@ -0,0 +1,224 @@
+package swagui.math;
+
+/**
+ * Mutable 2D affine transformation, for transforming tiles without allocation.
+ * Stored as the top two rows of a 3x3 matrix, the bottom row being (0, 0, 1):
+ * <pre>
+ * | m00 m01 m02 |
+ * | m10 m11 m12 |
+ * </pre>
+ * Operations modify the transformation in place, and return it for chaining.
+ * Rotations are by whole degrees, using a table of sines.
+ * @author Alec Dorrington
+ */
+public class Affine2 {
+    
+    /** Sine of each whole angle in [0, 360) degrees. */
+    private static final float[] SINES = new float[360];
+    
+    static {
+        for(int i = 0; i < 360; i++) {
+            SINES[i] = (float) Math.sin(Math.toRadians(i));
+        }
+        //Exact values for right angles, so unrotated tiles stay axis-aligned.
+        SINES[0] = SINES[180] = 0.0F;
+        SINES[90] = 1.0F;
+        SINES[270] = -1.0F;
+    }
+    
+    /** Entries of the matrix (row, column). */
+    public float m00 = 1.0F, m01 = 0.0F, m02 = 0.0F,
+                 m10 = 0.0F, m11 = 1.0F, m12 = 0.0F;
+    
+    /**
+     * Create a new identity transformation.
+     */
+    public Affine2() {}
+    
+    /**
+     * Create a copy of a transformation.
+     * @param transform to copy.
+     */
+    public Affine2(Affine2 transform) {
+        set(transform);
+    }
+    
+    /**
+     * Reset to the identity transformation.
+     * @return this transformation.
+     */
+    public Affine2 setIdentity() {
+        m00 = 1.0F; m01 = 0.0F; m02 = 0.0F;
+        m10 = 0.0F; m11 = 1.0F; m12 = 0.0F;
+        return this;
+    }
+    
+    /**
+     * Copy another transformation.
+     * @param transform to copy.
+     * @return this transformation.
+     */
+    public Affine2 set(Affine2 transform) {
+        m00 = transform.m00; m01 = transform.m01; m02 = transform.m02;
+        m10 = transform.m10; m11 = transform.m11; m12 = transform.m12;
+        return this;
+    }
+    
+    /**
+     * Set to the product of translation, rotation and scale,
+     * without composing separate matrices.
+     * @param x x-translation.
+     * @param y y-translation.
+     * @param angle rotation (degrees, anti-clockwise).
+     * @param sx x-scale.
+     * @param sy y-scale.
+     * @return this transformation.
+     */
+    public Affine2 set(float x, float y, int angle, float sx, float sy) {
+        
+        float sin = sin(angle), cos = cos(angle);
+        m00 = cos*sx; m01 = -sin*sy; m02 = x;
+        m10 = sin*sx; m11 = cos*sy; m12 = y;
+        return this;
+    }
+    
+    /**
+     * Right-multiply by another transformation, so that it is applied first.
+     * @param t transformation by which to multiply.
+     * @return this transformation.
+     */
+    public Affine2 mul(Affine2 t) {
+        
+        float n00 = m00*t.m00 + m01*t.m10, n01 = m00*t.m01 + m01*t.m11;
+        float n10 = m10*t.m00 + m11*t.m10, n11 = m10*t.m01 + m11*t.m11;
+        m02 = m00*t.m02 + m01*t.m12 + m02;
+        m12 = m10*t.m02 + m11*t.m12 + m12;
+        m00 = n00; m01 = n01;
+        m10 = n10; m11 = n11;
+        return this;
+    }
+    
+    /**
+     * Right-multiply by a translation, so that it is applied first.
+     * @param x x-translation.
+     * @param y y-translation.
+     * @return this transformation.
+     */
+    public Affine2 translate(float x, float y) {
+        m02 += m00*x + m01*y;
+        m12 += m10*x + m11*y;
+        return this;
+    }
+    
+    /**
+     * Right-multiply by a rotation, so that it is applied first.
+     * @param angle rotation (degrees, anti-clockwise).
+     * @return this transformation.
+     */
+    public Affine2 rotate(int angle) {
+        
+        float sin = sin(angle), cos = cos(angle);
+        float n00 = m00*cos + m01*sin, n01 = m01*cos - m00*sin;
+        float n10 = m10*cos + m11*sin, n11 = m11*cos - m10*sin;
+        m00 = n00; m01 = n01;
+        m10 = n10; m11 = n11;
+        return this;
+    }
+    
+    /**
+     * Right-multiply by a scale, so that it is applied first.
+     * @param sx x-scale.
+     * @param sy y-scale.
+     * @return this transformation.
+     */
+    public Affine2 scale(float sx, float sy) {
+        m00 *= sx; m01 *= sy;
+        m10 *= sx; m11 *= sy;
+        return this;
+    }
+    
+    /**
+     * Left-multiply by another transformation, so that it is applied last.
+     * @param t transformation by which to multiply.
+     * @return this transformation.
+     */
+    public Affine2 preMul(Affine2 t) {
+        
+        float n00 = t.m00*m00 + t.m01*m10, n01 = t.m00*m01 + t.m01*m11;
+        float n10 = t.m10*m00 + t.m11*m10, n11 = t.m10*m01 + t.m11*m11;
+        float n02 = t.m00*m02 + t.m01*m12 + t.m02;
+        float n12 = t.m10*m02 + t.m11*m12 + t.m12;
+        m00 = n00; m01 = n01; m02 = n02;
+        m10 = n10; m11 = n11; m12 = n12;
+        return this;
+    }
+    
+    /**
+     * Invert this transformation in place.
+     * @return whether the transformation was inverted
+     * (false, leaving it unchanged, if it has no inverse).
+     */
+    public boolean invert() {
+        
+        float det = m00*m11 - m01*m10;
+        if(det == 0.0F) return false;
+        
+        float i00 = m11/det, i01 = -m01/det;
+        float i10 = -m10/det, i11 = m00/det;
+        float i02 = -(i00*m02 + i01*m12), i12 = -(i10*m02 + i11*m12);
+        m00 = i00; m01 = i01; m02 = i02;
+        m10 = i10; m11 = i11; m12 = i12;
+        return true;
+    }
+    
+    /**
+     * @param x x-coordinate of a point.
+     * @param y y-coordinate of a point.
+     * @return x-coordinate of the point once transformed.
+     */
+    public float applyX(float x, float y) {
+        return m00*x + m01*y + m02;
+    }
+    
+    /**
+     * @param x x-coordinate of a point.
+     * @param y y-coordinate of a point.
+     * @return y-coordinate of the point once transformed.
+     */
+    public float applyY(float x, float y) {
+        return m10*x + m11*y + m12;
+    }
+    
+    /**
+     * Write this transformation as a 4x4 matrix, with the given z-translation.
+     * @param dest array into which the row-major matrix is written.
+     * @param offset position in the array of the first element.
+     * @param z z-translation.
+     * @return the destination array.
+     */
+    public float[] get(float[] dest, int offset, float z) {
+        
+        int o = offset;
+        dest[o] = m00; dest[o+1] = m01; dest[o+2] = 0.0F; dest[o+3] = m02;
+        dest[o+4] = m10; dest[o+5] = m11; dest[o+6] = 0.0F; dest[o+7] = m12;
+        dest[o+8] = 0.0F; dest[o+9] = 0.0F; dest[o+10] = 1.0F; dest[o+11] = z;
+        dest[o+12] = 0.0F; dest[o+13] = 0.0F; dest[o+14] = 0.0F; dest[o+15] = 1.0F;
+        return dest;
+    }
+    
+    /**
+     * @param degrees angle (degrees).
+     * @return the sine of the angle.
+     */
+    public static float sin(int degrees) {
+        return SINES[Math.floorMod(degrees, 360)];
+    }
+    
+    /**
+     * @param degrees angle (degrees).
+     * @return the cosine of the angle.
+     */
+    public static float cos(int degrees) {
+        return SINES[Math.floorMod(degrees + 90, 360)];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,237 @@
+package swagui.math;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Computes the transformations of many tiles at once, such as particles,
+ * from arrays of their positions, sizes, angles and depths.
+ * Equivalent to translation, then rotation, then scale, as for a single tile,
+ * but written as a batch in the per-instance layout of the tile shader.
+ * Each pass runs over contiguous arrays of a single component. Where the
+ * incubating Vector API is available, the passes use explicit SIMD kernels,
+ * which are compiled separately (see VectorTransformKernel); otherwise,
+ * scalar loops are used, which the JIT compiler may vectorise itself.
+ * Both produce identical results. Reuses its arrays between batches,
+ * so allocates only when a batch is larger than any before.
+ * @author Alec Dorrington
+ */
+public class TransformBatch {
+    
+    /**
+     * Number of floats of per-instance data for each tile in the tile shader
+     * (transform, corner colours, flags and texture rectangle).
+     */
+    public static final int INSTANCE_FLOATS = 40;
+    
+    /**
+     * Arithmetic of a batch, over arrays of a single component.
+     */
+    interface Kernel {
+        
+        /**
+         * Combine the rotation and scale of each tile.
+         * @param count number of tiles.
+         * @param sin sine of the angle of each tile.
+         * @param cos cosine of the angle of each tile.
+         * @param width width of each tile (pixels).
+         * @param height height of each tile (pixels).
+         * @param m00 entry (0, 0) of each matrix, written.
+         * @param m01 entry (0, 1) of each matrix, written.
+         * @param m10 entry (1, 0) of each matrix, written.
+         * @param m11 entry (1, 1) of each matrix, written.
+         */
+        void scale(int count, float[] sin, float[] cos, float[] width, float[] height,
+                float[] m00, float[] m01, float[] m10, float[] m11);
+        
+        /**
+         * Map the depth of each tile, as for a single tile.
+         * @param count number of tiles.
+         * @param depth depth of each tile (0-99).
+         * @param tz z-translation of each matrix, written.
+         */
+        void depth(int count, int[] depth, float[] tz);
+    }
+    
+    /** Kernel using scalar loops. */
+    private static final Kernel SCALAR = new Kernel() {
+        
+        @Override
+        public void scale(int count, float[] sin, float[] cos, float[] width, float[] height,
+                float[] m00, float[] m01, float[] m10, float[] m11) {
+            
+            for(int i = 0; i < count; i++) m00[i] = cos[i] * width[i];
+            for(int i = 0; i < count; i++) m01[i] = -sin[i] * height[i];
+            for(int i = 0; i < count; i++) m10[i] = sin[i] * width[i];
+            for(int i = 0; i < count; i++) m11[i] = cos[i] * height[i];
+        }
+        
+        @Override
+        public void depth(int count, int[] depth, float[] tz) {
+            for(int i = 0; i < count; i++) tz[i] = 1.0F - (depth[i] + 1) / 100.0F;
+        }
+    };
+    
+    /** Kernel using the Vector API (null if unavailable). */
+    private static final Kernel VECTOR = loadVectorKernel();
+    
+    /** Kernel used by this batch. */
+    private Kernel kernel = VECTOR != null ? VECTOR : SCALAR;
+    
+    /** Number of tiles in the batch. */
+    private int size = 0;
+    
+    /** Sine and cosine of the angle of each tile. */
+    private float[] sin = new float[0], cos = new float[0];
+    
+    /** Rotation and scale entries of each matrix (row, column). */
+    private float[] m00 = new float[0], m01 = new float[0],
+                    m10 = new float[0], m11 = new float[0];
+    
+    /** Translation of each matrix. */
+    private float[] tx = new float[0], ty = new float[0], tz = new float[0];
+    
+    /** Interleaved per-instance data, for bulk upload. */
+    private float[] instances = new float[0];
+    
+    /** @return whether the Vector API is available, for vectorised batches. */
+    public static boolean isVectorSupported() { return VECTOR != null; }
+    
+    /** @return whether this batch uses the Vector API. */
+    public boolean isVectorised() { return kernel == VECTOR; }
+    
+    /**
+     * Set whether to use the Vector API, if it is available.
+     * @param vectorised whether to use the Vector API (default true).
+     * @return this batch.
+     */
+    public TransformBatch setVectorised(boolean vectorised) {
+        kernel = vectorised && VECTOR != null ? VECTOR : SCALAR;
+        return this;
+    }
+    
+    /**
+     * Compute the transformations of a batch of tiles,
+     * replacing those of the previous batch.
+     * @param count number of tiles.
+     * @param x x-coordinate of each tile (pixels).
+     * @param y y-coordinate of each tile (pixels).
+     * @param width width of each tile (pixels).
+     * @param height height of each tile (pixels).
+     * @param angle angle of each tile (degrees, anti-clockwise).
+     * @param depth depth of each tile (0-99).
+     * @return this batch.
+     */
+    public TransformBatch compute(int count, float[] x, float[] y,
+            float[] width, float[] height, int[] angle, int[] depth) {
+        
+        ensureCapacity(count);
+        size = count;
+        
+        //Table lookups, which can't be vectorised, in a separate pass.
+        for(int i = 0; i < count; i++) {
+            sin[i] = Affine2.sin(angle[i]);
+            cos[i] = Affine2.cos(angle[i]);
+        }
+        
+        //Rotation, then scale.
+        kernel.scale(count, sin, cos, width, height, m00, m01, m10, m11);
+        
+        //Translation, with depth mapped as for a single tile.
+        System.arraycopy(x, 0, tx, 0, count);
+        System.arraycopy(y, 0, ty, 0, count);
+        kernel.depth(count, depth, tz);
+        return this;
+    }
+    
+    /** @return the number of tiles in the batch. */
+    public int size() { return size; }
+    
+    /**
+     * Write the batch to a buffer as per-instance data of the tile shader,
+     * as untextured tiles of a single colour each. For each tile, this is
+     * its transform (4x4, column-major), the colour of each of its four corners,
+     * its flags (texture mode and layer) and its texture rectangle.
+     * @param dest buffer with room for INSTANCE_FLOATS floats per tile,
+     * written from its position, which is advanced past the data.
+     * @param colours colour of each tile (RGBA, 4 floats per tile).
+     * @return the destination buffer.
+     */
+    public ByteBuffer put(ByteBuffer dest, float[] colours) {
+        
+        float[] d = instances;
+        for(int i = 0; i < size; i++) {
+            int o = INSTANCE_FLOATS * i;
+            
+            //Transform, column-major.
+            d[o] = m00[i]; d[o+1] = m10[i]; d[o+2] = 0.0F; d[o+3] = 0.0F;
+            d[o+4] = m01[i]; d[o+5] = m11[i]; d[o+6] = 0.0F; d[o+7] = 0.0F;
+            d[o+8] = 0.0F; d[o+9] = 0.0F; d[o+10] = 1.0F; d[o+11] = 0.0F;
+            d[o+12] = tx[i]; d[o+13] = ty[i]; d[o+14] = tz[i]; d[o+15] = 1.0F;
+            
+            //Corner colours.
+            for(int c = 16; c < 32; c += 4) System.arraycopy(colours, 4*i, d, o+c, 4);
+            
+            //Flags (untextured), and texture rectangle (whole texture).
+            d[o+32] = 0.0F; d[o+33] = 0.0F; d[o+34] = 0.0F; d[o+35] = 0.0F;
+            d[o+36] = 0.0F; d[o+37] = 0.0F; d[o+38] = 1.0F; d[o+39] = 1.0F;
+        }
+        dest.asFloatBuffer().put(d, 0, INSTANCE_FLOATS * size);
+        return dest.position(dest.position() + INSTANCE_FLOATS * Float.BYTES * size);
+    }
+    
+    /**
+     * Write the transformations of the batch to an array,
+     * as 4x4 row-major matrices, as for a single tile.
+     * @param dest array with room for 16 floats per tile.
+     * @param offset position in the array of the first element.
+     * @return the destination array.
+     */
+    public float[] get(float[] dest, int offset) {
+        
+        for(int i = 0; i < size; i++) {
+            int o = offset + 16 * i;
+            dest[o] = m00[i]; dest[o+1] = m01[i]; dest[o+2] = 0.0F; dest[o+3] = tx[i];
+            dest[o+4] = m10[i]; dest[o+5] = m11[i]; dest[o+6] = 0.0F; dest[o+7] = ty[i];
+            dest[o+8] = 0.0F; dest[o+9] = 0.0F; dest[o+10] = 1.0F; dest[o+11] = tz[i];
+            dest[o+12] = 0.0F; dest[o+13] = 0.0F; dest[o+14] = 0.0F; dest[o+15] = 1.0F;
+        }
+        return dest;
+    }
+    
+    /**
+     * Grow the arrays to fit a batch, if required.
+     * @param count number of tiles.
+     */
+    private void ensureCapacity(int count) {
+        
+        if(count <= m00.length) return;
+        int capacity = Math.max(count, 2 * m00.length);
+        sin = new float[capacity];
+        cos = new float[capacity];
+        m00 = new float[capacity];
+        m01 = new float[capacity];
+        m10 = new float[capacity];
+        m11 = new float[capacity];
+        tx = new float[capacity];
+        ty = new float[capacity];
+        tz = new float[capacity];
+        instances = new float[INSTANCE_FLOATS * capacity];
+    }
+    
+    /**
+     * Load the kernel using the Vector API, if the jdk.incubator.vector module
+     * is present (e.g. run with --add-modules jdk.incubator.vector), the kernel
+     * was compiled, and the hardware supports more than one lane.
+     * @return the vector kernel (null if unavailable).
+     */
+    private static Kernel loadVectorKernel() {
+        
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (Kernel) Class.forName("swagui.math.VectorTransformKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch(ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package swagui.shaders;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * A buffer object backing a uniform block or shader storage block.
+ * Data is written client-side in the layout of the block (std140/std430),
+ * then loaded to the GPU with a single call.
+ * @author Alec Dorrington
+ */
+public class BlockBuffer {
+    
+    /** The buffer target (GL_UNIFORM_BUFFER or GL_SHADER_STORAGE_BUFFER). */
+    private final int target;
+    
+    /** The binding point to which the buffer is attached. */
+    private final int binding;
+    
+    /** The ID of the buffer. */
+    private int bufferId = -1;
+    
+    /** Client-side block data. */
+    private ByteBuffer data;
+    
+    /**
+     * Create a new block buffer.
+     * @param target GL_UNIFORM_BUFFER or GL_SHADER_STORAGE_BUFFER.
+     * @param binding point to which the buffer is attached.
+     * @param size initial size of the block (bytes).
+     */
+    public BlockBuffer(int target, int binding, int size) {
+        this.target = target;
+        this.binding = binding;
+        data = BufferUtils.createByteBuffer(size);
+    }
+    
+    /** @return the binding point to which the buffer is attached. */
+    public int getBinding() { return binding; }
+    
+    /** @return the ID of the buffer. */
+    public int getBufferId() {
+        if(bufferId == -1) bufferId = glGenBuffers();
+        return bufferId;
+    }
+    
+    /**
+     * Begin writing block data.
+     * @param size of the block data to be written (bytes).
+     * @return the cleared client-side buffer, with at least the given capacity.
+     */
+    public ByteBuffer begin(int size) {
+        
+        //Grow buffer if it is too small.
+        if(data.capacity() < size) {
+            data = BufferUtils.createByteBuffer(
+                    Math.max(size, data.capacity() * 2));
+        }
+        data.clear();
+        return data;
+    }
+    
+    /**
+     * Load written block data to the GPU and attach it to its binding point.
+     */
+    public void upload() {
+        
+        data.flip();
+        glBindBuffer(target, getBufferId());
+        //Orphan previous contents rather than waiting on pending draws.
+        glBufferData(target, data, GL_STREAM_DRAW);
+        glBindBuffer(target, 0);
+        glBindBufferBase(target, binding, bufferId);
+    }
+    
+    /**
+     * Delete the buffer upon completion.
+     */
+    public void destroy() {
+        if(bufferId != -1) glDeleteBuffers(bufferId);
+        bufferId = -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package swagui.shaders;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL41.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
+
+/**
+ * Optional on-disk cache of linked shader programs, so that shaders need only
+ * be compiled on the first launch. Each entry holds the program binary
+ * retrieved from the driver, keyed by a hash of the shader sources and the
+ * GL vendor, renderer and version. Later launches load the binary directly,
+ * falling back to compilation if the driver rejects it.
+ * Requires OpenGL 4.1 or ARB_get_program_binary. Disabled until a directory is set.
+ * @author Alec Dorrington
+ */
+public class ProgramCache {
+    
+    /** Identifies a cache entry ("SWGP"). */
+    private static final int MAGIC = 0x53574750;
+    
+    /** Version of the entry format. */
+    private static final int VERSION = 1;
+    
+    /** Size of the header of an entry (bytes). */
+    private static final int HEADER_SIZE = 24;
+    
+    /** Directory in which entries are stored (null if disabled). */
+    private static volatile Path directory;
+    
+    private ProgramCache() {}
+    
+    /** @return directory in which shader programs are cached (null if disabled). */
+    public static Path getDirectory() { return directory; }
+    
+    /**
+     * Enable caching of shader programs.
+     * @param directory in which to store program binaries (null to disable).
+     */
+    public static void setDirectory(Path directory) {
+        ProgramCache.directory = directory;
+    }
+    
+    /**
+     * @return whether program binaries may be cached with the current context.
+     */
+    static boolean isEnabled() {
+        
+        if(directory == null) return false;
+        GLCapabilities caps = GL.getCapabilities();
+        return (caps.OpenGL41 || caps.GL_ARB_get_program_binary)
+                && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+    
+    /**
+     * Derive the key of a program, which changes with the shader sources
+     * or the driver, either of which invalidates the binary.
+     * @param sources of each shader of the program.
+     * @return the key of the program (hex).
+     */
+    static String getKey(String... sources) {
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for(String source : sources) {
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            for(int name : new int[] {GL_VENDOR, GL_RENDERER, GL_VERSION}) {
+                digest.update(String.valueOf(glGetString(name)).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            StringBuilder key = new StringBuilder();
+            for(byte b : digest.digest()) key.append(String.format("%02x", b));
+            return key.toString();
+        
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Load a program binary from the cache, if present and accepted by the driver.
+     * @param programId ID of the program into which the binary is loaded.
+     * @param key of the program.
+     * @return the time taken to compile and link the program originally
+     * (nanoseconds), or -1 if the program wasn't loaded.
+     */
+    static long load(int programId, String key) {
+        
+        Path file = getFile(key);
+        if(file == null || !Files.isRegularFile(file)) return -1;
+        
+        try {
+            //Check the header, then hand the binary to the driver.
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer header = ByteBuffer.wrap(bytes);
+            if(bytes.length < HEADER_SIZE || header.getInt() != MAGIC
+                    || header.getInt() != VERSION) return -1;
+            int format = header.getInt(), length = header.getInt();
+            long compileTime = header.getLong();
+            if(bytes.length < HEADER_SIZE + length) return -1;
+            
+            ByteBuffer binary = BufferUtils.createByteBuffer(length);
+            binary.put(bytes, HEADER_SIZE, length).flip();
+            glProgramBinary(programId, format, binary);
+            
+            //Discard binaries rejected by the driver, such as after an update.
+            if(glGetProgrami(programId, GL_LINK_STATUS) == GL_FALSE) {
+                Files.deleteIfExists(file);
+                return -1;
+            }
+            return compileTime;
+        
+        } catch(IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Store the binary of a linked program in the cache, if enabled.
+     * @param programId ID of the linked program.
+     * @param key of the program.
+     * @param compileTime time taken to compile and link the program (nanoseconds).
+     */
+    static void save(int programId, String key, long compileTime) {
+        
+        //Never cache a program which failed to link.
+        Path file = getFile(key);
+        if(file == null || glGetProgrami(programId, GL_LINK_STATUS) == GL_FALSE) return;
+        
+        try(MemoryStack stack = MemoryStack.stackPush()) {
+            
+            //Retrieve the binary from the driver.
+            int length = glGetProgrami(programId, GL_PROGRAM_BINARY_LENGTH);
+            if(length <= 0) return;
+            ByteBuffer binary = BufferUtils.createByteBuffer(length);
+            IntBuffer format = stack.mallocInt(1);
+            glGetProgramBinary(programId, null, format, binary);
+            
+            byte[] bytes = new byte[HEADER_SIZE + binary.remaining()];
+            ByteBuffer.wrap(bytes).putInt(MAGIC).putInt(VERSION).putInt(format.get(0))
+                .putInt(binary.remaining()).putLong(compileTime).put(binary);
+            
+            //Write to a temporary file, then move it into place.
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "program", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * @param key of the program.
+     * @return file in which the program is cached (null if disabled).
+     */
+    private static Path getFile(String key) {
+        Path directory = ProgramCache.directory;
+        return directory == null ? null : directory.resolve(key + ".bin");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package swagui.shaders;
+
+import java.util.Arrays;
+
+/**
+ * Queue of tiles to render, sorted by draw key to minimise state changes.
+ * Each key packs, from most to least significant:
+ * opacity class (1 bit), depth layer (8 bits), shader variant (1 bit),
+ * texture ID (22 bits) and submission index (32 bits).
+ * Opaque tiles are thus drawn first, front-to-back, followed by translucent
+ * tiles, back-to-front. Within each layer, tiles are grouped by texture.
+ * @author Alec Dorrington
+ */
+public class RenderQueue {
+    
+    /** Positions of each field of a draw key. */
+    private static final int OPACITY_SHIFT = 63, DEPTH_SHIFT = 55,
+            VARIANT_SHIFT = 54, TEXTURE_SHIFT = 32;
+    
+    /** Mask of the texture ID field of a draw key. */
+    private static final long TEXTURE_MASK = (1L << 22) - 1;
+    
+    /** Draw keys, and scratch space for sorting. */
+    private long[] keys = new long[1024], scratch = new long[1024];
+    
+    /** Number of queued tiles. */
+    private int size = 0;
+    
+    /** Bucket counts for radix sort. */
+    private final int[] counts = new int[256];
+    
+    /**
+     * Remove all tiles from the queue.
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * Add a tile to the queue. Tiles are identified by their submission index.
+     * @param depth of the tile.
+     * @param textureId ID of the texture of the tile (0 if untextured).
+     * @param opaque whether the tile is fully opaque (colour and texture).
+     */
+    public void add(int depth, int textureId, boolean opaque) {
+        
+        //Grow queue if it is full.
+        if(size == keys.length) {
+            long[] newKeys = new long[2 * size];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            keys = newKeys;
+            scratch = new long[2 * size];
+        }
+        
+        //Opaque tiles are ordered front-to-back, translucent back-to-front.
+        long layer = Math.max(0, Math.min(255, depth));
+        if(opaque) layer = 255 - layer;
+        
+        keys[size] = (opaque ? 0L : 1L) << OPACITY_SHIFT
+                | layer << DEPTH_SHIFT
+                | (textureId != 0 ? 1L : 0L) << VARIANT_SHIFT
+                | (textureId & TEXTURE_MASK) << TEXTURE_SHIFT
+                | size;
+        size++;
+    }
+    
+    /**
+     * Sort the queue by draw key.
+     * Uses an LSD radix sort over the state bytes of each key; since keys are
+     * submitted in index order and the sort is stable, index bytes are skipped.
+     */
+    public void sort() {
+        
+        for(int shift = TEXTURE_SHIFT; shift < 64; shift += 8) {
+            
+            //Count keys in each bucket, skipping passes over constant bytes.
+            Arrays.fill(counts, 0);
+            for(int i = 0; i < size; i++) {
+                counts[(int) (keys[i] >>> shift) & 0xFF]++;
+            }
+            if(counts[(int) (keys[0] >>> shift) & 0xFF] == size) continue;
+            
+            //Convert counts to bucket offsets.
+            for(int b = 0, offset = 0; b < 256; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            
+            //Scatter keys into buckets, in order.
+            for(int i = 0; i < size; i++) {
+                scratch[counts[(int) (keys[i] >>> shift) & 0xFF]++] = keys[i];
+            }
+            long[] temp = keys;
+            keys = scratch;
+            scratch = temp;
+        }
+    }
+    
+    /** @return the number of queued tiles. */
+    public int size() { return size; }
+    
+    /**
+     * @param i position in sorted order.
+     * @return the submission index of the tile at the given position.
+     */
+    public int getIndex(int i) { return (int) keys[i]; }
+    
+    /**
+     * @param i position in sorted order.
+     * @return the draw key at the given position.
+     */
+    public long getKey(int i) { return keys[i]; }
+    
+    /**
+     * @param key draw key.
+     * @return the ID of the texture of the tile (0 if untextured).
+     */
+    public static int getTextureId(long key) {
+        return (int) ((key >>> TEXTURE_SHIFT) & TEXTURE_MASK);
+    }
+    
+    /**
+     * @param key draw key.
+     * @return whether the tile is fully opaque.
+     */
+    public static boolean isOpaque(long key) {
+        return ((key >>> OPACITY_SHIFT) & 1L) == 0;
+    }
+}
\ No newline at end of file
@@ -1,191 +1,298 @@
-package swagui.shaders;
-
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL20.*;
-
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import swagui.graphics.Colour;
-import swagui.math.Matrix4;
-
-/**
- * An OpenGL shader program.
- * @author Alec Dorrington
- */
-public abstract class Shader {
-    
-    /**
-     * The IDs of the shaders and shader program.
-     */
-    private int shaderProgramId, vertexShaderId, fragmentShaderId;
-    
-    /**
-     * The source files of the shaders.
-     */
-    private String vertexShaderSrc, fragmentShaderSrc;
-    
-    /** Table of uniform variable locations. */
-    private Map<String, Integer> uniforms = new HashMap<>();
-    
-    /**
-     * Creates a new shader from the given source files.
-     * @param vertexShaderFile the source file for the vertex shader.
-     * @param fragmentShaderFile the source file for the fragment shader.
-     */
-    protected Shader(String vertexShaderSrc, String fragmentShaderSrc) {
-        this.vertexShaderSrc = vertexShaderSrc;
-        this.fragmentShaderSrc = fragmentShaderSrc;
-    }
-    
-    /**
-     * Initialize shader prior to rendering.
-     */
-    public void init() {
-        
-        //Compile shader source.
-        vertexShaderId = compile(vertexShaderSrc, GL_VERTEX_SHADER);
-        fragmentShaderId = compile(fragmentShaderSrc, GL_FRAGMENT_SHADER);
-        
-        //Create shader program and attach shaders.
-        shaderProgramId = glCreateProgram();
-        glAttachShader(shaderProgramId, vertexShaderId);
-        glAttachShader(shaderProgramId, fragmentShaderId);
-        
-        //Bind VBOs.
-        onBind();
-        
-        //Link and validate shader program.
-        glLinkProgram(shaderProgramId);
-        glValidateProgram(shaderProgramId);
-        
-        //Initialize shader.
-        glUseProgram(shaderProgramId);
-        onInit();
-        glUseProgram(0);
-    }
-    
-    /**
-     * Destroy shader upon completion.
-     */
-    public void destroy() {
-        
-        //Detach shaders.
-        glUseProgram(0);
-        glDetachShader(shaderProgramId, vertexShaderId);
-        glDetachShader(shaderProgramId, fragmentShaderId);
-        
-        //Delete shaders and shader program.
-        glDeleteShader(vertexShaderId);
-        glDeleteShader(vertexShaderId);
-        glDeleteProgram(shaderProgramId);
-    }
-    
-    /**
-     * @return the ID of this shader program.
-     */
-    protected int getShaderProgramId() { return shaderProgramId; }
-    
-    /**
-     * Load uniform to GPU.
-     * @param name of uniform variable.
-     * @param matrix value to be loaded.
-     */
-    protected void setUniform(String name, Matrix4 matrix) {
-        glUniformMatrix4fv(locationOf(name), true, matrix.asFloatBuffer());
-    }
-    
-    /**
-     * Load uniform to GPU.
-     * @param name of uniform variable.
-     * @param value to be loaded.
-     */
-    protected void setUniform(String name, boolean value) {
-        glUniform1f(locationOf(name), value ? 1 : 0);
-    }
-    
-    /**
-     * Load uniform to GPU.
-     * @param name of uniform variable.
-     * @param colour to be loaded.
-     */
-    protected void setUniform(String name, Colour colour) {
-        glUniform4f(locationOf(name), colour.R, colour.G, colour.B, colour.A);
-    }
-    
-    /**
-     * Load uniform to GPU.
-     * @param name of uniform variable.
-     * @param colours to be loaded.
-     */
-    protected void setUniform(String name, List<Colour> colours) {
-        for(int i = 0; i < colours.size(); i++) {
-            setUniform(name+"["+i+"]", colours.get(i));
-        }
-    }
-    
-    /**
-     * Finds the location of the uniform variable of the given name.
-     * @param name of the uniform variable.
-     * @return the location of the variable.
-     */
-    private int locationOf(String name) {
-        uniforms.putIfAbsent(name,
-                glGetUniformLocation(shaderProgramId, name));
-        return uniforms.get(name);
-    }
-    
-    /**
-     * @return the ID of this shader program.
-     */
-    protected int getShaderID() { return shaderProgramId; }
-    
-    /**
-     * @param shaderFile the name of the shader's file.
-     * @param shaderType the type of shader (vertex/fragment).
-     * @return the ID of the compiled shader.
-     */
-    private int compile(String shaderSrc, int shaderType) {
-        
-        //Read source file.
-        String src = loadResource(shaderSrc);
-        
-        //Compile shader source.
-        int shaderId = glCreateShader(shaderType);
-        glShaderSource(shaderId, src);
-        glCompileShader(shaderId);
-        
-        //Check for errors.
-        if(glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE) {
-            System.err.println(glGetShaderInfoLog(shaderId, 500));
-            System.exit(0);
-        }
-        return shaderId;
-    }
-    
-    /**
-     * Read entire contents of file/resource to string.
-     * @param path the relative path of the file.
-     * @return the contents of the file.
-     */
-    private String loadResource(String name) {
-        
-        InputStream in = getClass().getResourceAsStream(name);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-        return reader.lines().reduce("", (l1, l2) -> l1 + "\n" + l2);
-    }
-    
-    /**
-     * Bind VBOs prior to initialization.
-     */
-    protected abstract void onBind();
-    
-    /**
-     * Initialize this shader.
-     */
-    protected abstract void onInit();
+package swagui.shaders;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL41.*;
+import static org.lwjgl.opengl.GL43.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.lwjgl.opengl.GL;
+
+import swagui.graphics.AssetPack;
+import swagui.graphics.Colour;
+import swagui.math.Matrix4;
+
+/**
+ * An OpenGL shader program.
+ * @author Alec Dorrington
+ */
+public abstract class Shader {
+    
+    /**
+     * The IDs of the shaders and shader program.
+     */
+    private int shaderProgramId, vertexShaderId, fragmentShaderId;
+    
+    /**
+     * The source files of the shaders.
+     */
+    private String vertexShaderSrc, fragmentShaderSrc;
+    
+    /** Table of uniform variable handles. */
+    private Map<String, Uniform> uniforms = new HashMap<>();
+    
+    /** Time taken to initialize the shader program (nanoseconds). */
+    private long initTime = 0;
+    
+    /** Time saved by loading the program from the cache (nanoseconds, 0 if compiled). */
+    private long timeSaved = 0;
+    
+    /** Whether the program was loaded from the cache. */
+    private boolean cached = false;
+    
+    /**
+     * Creates a new shader from the given source files.
+     * @param vertexShaderFile the source file for the vertex shader.
+     * @param fragmentShaderFile the source file for the fragment shader.
+     */
+    protected Shader(String vertexShaderSrc, String fragmentShaderSrc) {
+        this.vertexShaderSrc = vertexShaderSrc;
+        this.fragmentShaderSrc = fragmentShaderSrc;
+    }
+    
+    /**
+     * Initialize shader prior to rendering.
+     */
+    public void init() {
+        
+        long start = System.nanoTime();
+        String vertexSrc = loadResource(vertexShaderSrc);
+        String fragmentSrc = loadResource(fragmentShaderSrc);
+        shaderProgramId = glCreateProgram();
+        
+        //Load the linked program from the cache, if enabled and present.
+        boolean caching = ProgramCache.isEnabled();
+        String key = caching ? ProgramCache.getKey(
+                getClass().getName(), vertexSrc, fragmentSrc) : null;
+        long compileTime = caching ? ProgramCache.load(shaderProgramId, key) : -1;
+        
+        if(compileTime == -1) {
+            
+            //Start afresh if the cached binary was rejected.
+            if(caching) {
+                glDeleteProgram(shaderProgramId);
+                shaderProgramId = glCreateProgram();
+                glProgramParameteri(shaderProgramId,
+                        GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+            }
+            
+            //Compile shader source.
+            vertexShaderId = compile(vertexSrc, GL_VERTEX_SHADER);
+            fragmentShaderId = compile(fragmentSrc, GL_FRAGMENT_SHADER);
+            
+            //Attach shaders to shader program.
+            glAttachShader(shaderProgramId, vertexShaderId);
+            glAttachShader(shaderProgramId, fragmentShaderId);
+            
+            //Bind VBOs.
+            onBind();
+            
+            //Link and validate shader program.
+            glLinkProgram(shaderProgramId);
+            
+            //Check for errors, so that only programs which linked are cached.
+            if(glGetProgrami(shaderProgramId, GL_LINK_STATUS) == GL_FALSE) {
+                System.err.println(glGetProgramInfoLog(shaderProgramId, 500));
+                System.exit(0);
+            }
+            glValidateProgram(shaderProgramId);
+            initTime = System.nanoTime() - start;
+            if(caching) ProgramCache.save(shaderProgramId, key, initTime);
+            
+        } else {
+            cached = true;
+            initTime = System.nanoTime() - start;
+            timeSaved = Math.max(0, compileTime - initTime);
+        }
+        
+        //Initialize shader.
+        glUseProgram(shaderProgramId);
+        onInit();
+        glUseProgram(0);
+    }
+    
+    /**
+     * Destroy shader upon completion.
+     */
+    public void destroy() {
+        
+        //Detach shaders, unless loaded from the cache.
+        glUseProgram(0);
+        if(vertexShaderId != 0) {
+            glDetachShader(shaderProgramId, vertexShaderId);
+            glDetachShader(shaderProgramId, fragmentShaderId);
+            
+            //Delete shaders.
+            glDeleteShader(vertexShaderId);
+            glDeleteShader(fragmentShaderId);
+        }
+        glDeleteProgram(shaderProgramId);
+    }
+    
+    /**
+     * @return time taken to initialize the shader program, whether compiled
+     * or loaded from the cache (nanoseconds).
+     */
+    public long getInitTime() { return initTime; }
+    
+    /**
+     * @return time saved by loading the shader program from the cache,
+     * compared to when it was compiled (nanoseconds, 0 if compiled).
+     */
+    public long getTimeSaved() { return timeSaved; }
+    
+    /** @return whether the shader program was loaded from the cache. */
+    public boolean isCached() { return cached; }
+    
+    /**
+     * @return the ID of this shader program.
+     */
+    protected int getShaderProgramId() { return shaderProgramId; }
+    
+    /**
+     * Resolve a handle to the uniform variable of the given name.
+     * Handles should be resolved once, during onInit().
+     * @param name of uniform variable.
+     * @return the uniform handle.
+     */
+    protected Uniform getUniform(String name) {
+        
+        Uniform uniform = uniforms.get(name);
+        if(uniform == null) {
+            uniform = new Uniform(glGetUniformLocation(shaderProgramId, name));
+            uniforms.put(name, uniform);
+        }
+        return uniform;
+    }
+    
+    /**
+     * Attach a uniform block (std140) to a buffer binding point.
+     * @param name of the uniform block.
+     * @param binding point of the buffer backing the block.
+     * @return whether the block exists in this shader program.
+     */
+    protected boolean bindUniformBlock(String name, int binding) {
+        
+        int index = glGetUniformBlockIndex(shaderProgramId, name);
+        if(index == GL_INVALID_INDEX) return false;
+        glUniformBlockBinding(shaderProgramId, index, binding);
+        return true;
+    }
+    
+    /**
+     * Attach a shader storage block (std430) to a buffer binding point.
+     * Requires OpenGL 4.3.
+     * @param name of the storage block.
+     * @param binding point of the buffer backing the block.
+     * @return whether the block exists and is supported.
+     */
+    protected boolean bindStorageBlock(String name, int binding) {
+        
+        if(!GL.getCapabilities().OpenGL43) return false;
+        int index = glGetProgramResourceIndex(shaderProgramId,
+                GL_SHADER_STORAGE_BLOCK, name);
+        if(index == GL_INVALID_INDEX) return false;
+        glShaderStorageBlockBinding(shaderProgramId, index, binding);
+        return true;
+    }
+    
+    /**
+     * Load uniform to GPU.
+     * @param name of uniform variable.
+     * @param matrix value to be loaded.
+     */
+    protected void setUniform(String name, Matrix4 matrix) {
+        getUniform(name).set(matrix);
+    }
+    
+    /**
+     * Load uniform to GPU.
+     * @param name of uniform variable.
+     * @param value to be loaded.
+     */
+    protected void setUniform(String name, boolean value) {
+        getUniform(name).set(value);
+    }
+    
+    /**
+     * Load uniform to GPU.
+     * @param name of uniform variable.
+     * @param colour to be loaded.
+     */
+    protected void setUniform(String name, Colour colour) {
+        getUniform(name).set(colour);
+    }
+    
+    /**
+     * Load uniform to GPU.
+     * @param name of uniform variable.
+     * @param colours to be loaded.
+     */
+    protected void setUniform(String name, List<Colour> colours) {
+        getUniform(name).set(colours);
+    }
+    
+    /**
+     * @return the ID of this shader program.
+     */
+    protected int getShaderID() { return shaderProgramId; }
+    
+    /**
+     * @param src the source of the shader.
+     * @param shaderType the type of shader (vertex/fragment).
+     * @return the ID of the compiled shader.
+     */
+    private int compile(String src, int shaderType) {
+        
+        //Compile shader source.
+        int shaderId = glCreateShader(shaderType);
+        glShaderSource(shaderId, src);
+        glCompileShader(shaderId);
+        
+        //Check for errors.
+        if(glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE) {
+            System.err.println(glGetShaderInfoLog(shaderId, 500));
+            System.exit(0);
+        }
+        return shaderId;
+    }
+    
+    /**
+     * Read entire contents of file/resource to string.
+     * @param path the relative path of the file.
+     * @return the contents of the file.
+     */
+    private String loadResource(String name) {
+        
+        //Use a mounted asset pack, if any contains the source.
+        String path = getClass().getPackageName().replace('.', '/') + "/" + name;
+        String src = AssetPack.findText(path);
+        if(src != null) return src;
+        
+        try(BufferedReader reader = new BufferedReader(
+                new InputStreamReader(getClass().getResourceAsStream(name)))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Bind VBOs prior to initialization.
+     */
+    protected abstract void onBind();
+    
+    /**
+     * Initialize this shader.
+     */
+    protected abstract void onInit();
 }
\ No newline at end of file
@@ -1,149 +1,589 @@
-package swagui.shaders;
-
-import java.util.Set;
-
-import swagui.graphics.Mesh;
-import swagui.graphics.Texture;
-import swagui.math.Matrix4;
-import swagui.tiles.Tile;
-
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.*;
-import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL30.*;
-
-/**
- * Shader program for rendering quads.
- * @author Alec Dorrington
- */
-public class TileShader extends Shader {
-    
-    /** Square tile mesh. */
-    private Mesh tileMesh;
-    
-    /**
-     * Create tile shader program from GLSL source.
-     */
-    public TileShader() {
-        super("vertex.glsl", "fragment.glsl");
-    }
-
-    @Override
-    protected void onBind() {
-        glBindAttribLocation(getShaderID(), 0, "vertex");
-        glBindAttribLocation(getShaderID(), 1, "texmap");
-    }
-    
-    /**
-     * Render the given set of tiles.
-     * @param tiles to render.
-     * @param width of the window (pixels).
-     * @param height of the window (pixels).
-     */
-    public void render(Set<Tile> tiles, int width, int height) {
-        
-        //Shader shader and tile mesh.
-        glUseProgram(getShaderProgramId());
-        loadMesh(tileMesh);
-        
-        //Load view matrix to account for window size.
-        setUniform("view", Matrix4.getScaleMatrix(
-                2.0F/width, 2.0F/height, 1.0F));
-        
-        //Render each tile.
-        tiles.forEach(this::renderTile);
-        
-        //Unload shader and tile mesh.
-        unloadMesh();
-        glUseProgram(0);
-    }
-    
-    /**
-     * Render a tile to the screen.
-     * @param tile to render.
-     */
-    private void renderTile(Tile tile) {
-        
-        if(!tile.isVisible()) return;
-        
-        //Load texture.
-        if(tile.getTexture().isPresent()) {
-            loadTexture(tile.getTexture().get());
-        }
-        
-        setUniform("transform", tile.getTransform());
-        setUniform("colours", tile.getColour().getCorners());
-        setUniform("textured", tile.getTexture().isPresent());
-        
-        //Render tile.
-        glDrawArrays(GL_TRIANGLES, 0, tileMesh.getNumVertices());
-    }
-    
-    /**
-     * Load a mesh to OpenGL.
-     * @param mesh to load.
-     */
-    private void loadMesh(Mesh mesh) {
-        
-        //Load VAO.
-        glBindVertexArray(mesh.getVaoId());
-        
-        //Load each VBO.
-        for(int i = 0; i < 2; i++) {
-            glEnableVertexAttribArray(i);
-        }
-    }
-    
-    /**
-     * Unload current mesh.
-     */
-    private void unloadMesh() {
-        
-        //Unload each VBO.
-        for(int i = 0; i < 2; i++) {
-            glDisableVertexAttribArray(i);
-        }
-        
-        //Unload VAO.
-        glBindVertexArray(0);
-    }
-    
-    /**
-     * Load a texture to OpenGL.
-     * @param texture to load.
-     */
-    private void loadTexture(Texture texture) {
-        
-        //Bind texture to TEXTURE0.
-        glActiveTexture(GL_TEXTURE0);
-        
-        //Enable culling iff the texture is fully opaque.
-        if(texture.isOpaque()) glEnable(GL_CULL_FACE);
-        else glDisable(GL_CULL_FACE);
-        
-        //Load texture.
-        glBindTexture(GL_TEXTURE_2D, texture.getTextureId());
-    }
-    
-    @Override
-    protected void onInit() {
-        
-        tileMesh = new Mesh(
-            
-            //Vertices.
-            new float[] {-0.5F, -0.5F,
-                         0.5F, 0.5F,
-                         -0.5F, 0.5F,
-                         0.5F, 0.5F,
-                         -0.5F, -0.5F,
-                         0.5F, -0.5F},
-            
-            //Texture coordinates.
-            new float[] {0.0F, 1.0F,
-                         1.0F, 0.0F,
-                         0.0F, 0.0F,
-                         1.0F, 0.0F,
-                         0.0F, 1.0F,
-                         1.0F, 1.0F});
-    }
+package swagui.shaders;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import swagui.graphics.Mesh;
+import swagui.graphics.StreamBuffer;
+import swagui.graphics.Texture;
+import swagui.graphics.TextureResidency;
+import swagui.math.TransformBatch;
+import swagui.tiles.Snapshot;
+import swagui.tiles.Tile;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL43.*;
+
+/**
+ * Shader program for rendering quads.
+ * @author Alec Dorrington
+ */
+public class TileShader extends Shader {
+    
+    /**
+     * Method for submitting tiles to OpenGL.
+     */
+    public enum RenderMode {
+        
+        /** Each tile is loaded as uniforms and drawn individually. */
+        PER_TILE,
+        /** Tiles are loaded into an instance buffer and drawn in batches. */
+        INSTANCED,
+        /**
+         * Tiles are loaded into a shader storage buffer once per frame,
+         * and indexed by instance. Requires OpenGL 4.3, else uses INSTANCED.
+         */
+        BUFFERED
+    }
+    
+    /** Attribute ID of the first per-instance attribute. */
+    private static final int INSTANCE_ATTRIB = 2;
+    
+    /**
+     * Dimensionality of each per-instance attribute
+     * (transform, colours, flags, texture rectangle).
+     * Matches the std430 layout of TileData, so the data doubles as a storage block.
+     */
+    private static final int[] INSTANCE_DIMS = {4, 4, 4, 4, 4, 4, 4, 4, 4, 4};
+    
+    /** Binding points of the Frame uniform block and Tiles storage block. */
+    private static final int FRAME_BINDING = 0, TILES_BINDING = 0;
+    
+    /** Square tile mesh. */
+    private Mesh tileMesh;
+    
+    /** Method for submitting tiles to OpenGL. */
+    private RenderMode mode = RenderMode.INSTANCED;
+    
+    /** Method used for the current frame, subject to driver support. */
+    private RenderMode activeMode;
+    
+    /** Whether shader storage blocks are supported. */
+    private boolean storageSupported;
+    
+    /** Per-frame uniform block data. */
+    private BlockBuffer frame = new BlockBuffer(GL_UNIFORM_BUFFER, FRAME_BINDING, 64);
+    
+    /** Queue of visible tiles, sorted by render state. */
+    private RenderQueue queue = new RenderQueue();
+    
+    /** Snapshot of tiles rendered directly from a list. */
+    private Snapshot snapshot = new Snapshot();
+    
+    /** Snapshot of tiles being rendered. */
+    private Snapshot current;
+    
+    /** Manager of the GPU memory used by textures, if any. */
+    private TextureResidency residency;
+    
+    /** IDs of the currently bound texture and array texture. */
+    private int boundTextureId, boundArrayId;
+    
+    /** The currently loaded pass (-1 if none, 0 if opaque, 1 if translucent). */
+    private int pass;
+    
+    /** Counters of texture binds, other state changes and draw calls in the last frame. */
+    private int textureBinds, stateChanges, drawCalls;
+    
+    /** Ring buffer of per-instance data, one region per frame in flight. */
+    private StreamBuffer instances;
+    
+    /** Uniform variable handles. */
+    private Uniform renderMode, base, transform, colours, textured, layer, texrect;
+    
+    /** Reusable view and tile transformation matrices (row-major). */
+    private final float[] viewMatrix = new float[16], tileMatrix = new float[16];
+    
+    /**
+     * Create tile shader program from GLSL source.
+     */
+    public TileShader() {
+        super("vertex.glsl", "fragment.glsl");
+    }
+    
+    /**
+     * Set the manager to which rendered textures are reported,
+     * for keeping texture memory within a budget.
+     * @param residency manager of texture memory (or null).
+     * @return this shader.
+     */
+    public TileShader setResidency(TextureResidency residency) {
+        this.residency = residency;
+        return this;
+    }
+    
+    /** @return the method for submitting tiles to OpenGL. */
+    public RenderMode getRenderMode() { return mode; }
+    
+    /**
+     * Set the method for submitting tiles to OpenGL.
+     * @param mode for submitting tiles.
+     * @return this shader.
+     */
+    public TileShader setRenderMode(RenderMode mode) {
+        this.mode = mode;
+        return this;
+    }
+    
+    @Override
+    protected void onBind() {
+        glBindAttribLocation(getShaderID(), 0, "vertex");
+        glBindAttribLocation(getShaderID(), 1, "texmap");
+        glBindAttribLocation(getShaderID(), INSTANCE_ATTRIB, "instanceTransform");
+        glBindAttribLocation(getShaderID(), INSTANCE_ATTRIB+4, "instanceColours");
+        glBindAttribLocation(getShaderID(), INSTANCE_ATTRIB+8, "instanceFlags");
+        glBindAttribLocation(getShaderID(), INSTANCE_ATTRIB+9, "instanceTexrect");
+    }
+    
+    /**
+     * Render the given list of tiles.
+     * @param tiles to render.
+     * @param width of the window (pixels).
+     * @param height of the window (pixels).
+     */
+    public void render(List<Tile> tiles, int width, int height) {
+        render(snapshot.capture(tiles), width, height);
+    }
+    
+    /**
+     * Render a snapshot of tiles.
+     * @param tiles snapshot of tiles to render, which is only read.
+     * @param width of the window (pixels).
+     * @param height of the window (pixels).
+     */
+    public void render(Snapshot tiles, int width, int height) {
+        render(tiles, width, height, 0, 0);
+    }
+    
+    /**
+     * Render a snapshot of tiles, with the view centred on the given point.
+     * Tiles are drawn in depth order, sorted by render state within each layer.
+     * Performs no allocations once the render queue and instance buffer are large enough.
+     * @param tiles snapshot of tiles to render, which is only read.
+     * @param width of the view (pixels).
+     * @param height of the view (pixels).
+     * @param x x-coordinate of the centre of the view (pixels).
+     * @param y y-coordinate of the centre of the view (pixels).
+     */
+    public void render(Snapshot tiles, int width, int height, int x, int y) {
+        
+        //Fall back to instancing where storage blocks are unsupported.
+        activeMode = mode == RenderMode.BUFFERED && !storageSupported
+                ? RenderMode.INSTANCED : mode;
+        
+        //Sort tiles by draw key.
+        current = tiles;
+        queue.clear();
+        for(int i = 0; i < tiles.size(); i++) {
+            if(tiles.getTexture(i) != null && residency != null)
+                residency.touch(tiles.getTexture(i));
+            Texture texture = getTexture(i);
+            queue.add(tiles.getDepth(i),
+                    texture != null ? texture.getTextureId() : 0,
+                    tiles.isOpaque(i));
+        }
+        queue.sort();
+        
+        //Reset render state and counters.
+        textureBinds = stateChanges = drawCalls = 0;
+        boundTextureId = boundArrayId = pass = -1;
+        glActiveTexture(GL_TEXTURE0);
+        
+        //Shader shader and tile mesh.
+        glUseProgram(getShaderProgramId());
+        loadMesh(tileMesh);
+        
+        //Load view matrix to account for window size, once per frame.
+        loadView(width, height, x, y);
+        
+        //Render each tile.
+        renderMode.set(activeMode.ordinal());
+        if(activeMode != RenderMode.PER_TILE) renderInstanced();
+        else {
+            for(int i = 0; i < queue.size(); i++) {
+                renderTile(queue.getIndex(i), queue.getKey(i));
+            }
+        }
+        
+        //Unload shader and tile mesh, and restore default blending/depth state.
+        unloadMesh();
+        glUseProgram(0);
+        glEnable(GL_BLEND);
+        glDepthMask(true);
+        current = null;
+    }
+    
+    /**
+     * Render a batch of untextured tiles, such as particles, in a single draw
+     * call, with the view centred on the given point. The batch is drawn
+     * translucent, over whatever has already been rendered, without writing depth.
+     * Always instanced, or buffered if that is the render mode and supported.
+     * @param batch transformations of the tiles.
+     * @param colours colour of each tile (RGBA, 4 floats per tile).
+     * @param width of the view (pixels).
+     * @param height of the view (pixels).
+     * @param x x-coordinate of the centre of the view (pixels).
+     * @param y y-coordinate of the centre of the view (pixels).
+     */
+    public void render(TransformBatch batch, float[] colours,
+            int width, int height, int x, int y) {
+        
+        activeMode = mode == RenderMode.BUFFERED && storageSupported
+                ? RenderMode.BUFFERED : RenderMode.INSTANCED;
+        textureBinds = stateChanges = drawCalls = 0;
+        boundTextureId = boundArrayId = pass = -1;
+        if(batch.size() == 0) return;
+        
+        glUseProgram(getShaderProgramId());
+        loadMesh(tileMesh);
+        loadView(width, height, x, y);
+        renderMode.set(activeMode.ordinal());
+        
+        //Write the batch, already in the per-instance layout, in a single update.
+        ByteBuffer data = instances.map(
+                (long) batch.size() * tileMesh.getInstanceStride());
+        int size = batch.put(data, colours).position();
+        instances.unmap();
+        if(activeMode == RenderMode.BUFFERED) {
+            glBindBufferRange(GL_SHADER_STORAGE_BUFFER, TILES_BINDING,
+                    instances.getBufferId(), instances.getOffset(), size);
+            base.set(0);
+        } else tileMesh.setInstanceOffset(instances.getOffset());
+        
+        loadPass(false);
+        glDrawArraysInstanced(GL_TRIANGLES, 0, tileMesh.getNumVertices(), batch.size());
+        drawCalls++;
+        instances.fence();
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        
+        //Unload shader and tile mesh, and restore default blending/depth state.
+        unloadMesh();
+        glUseProgram(0);
+        glEnable(GL_BLEND);
+        glDepthMask(true);
+    }
+    
+    /** @return the number of texture binds in the last frame. */
+    public int getTextureBinds() { return textureBinds; }
+    
+    /** @return the number of other render state changes in the last frame. */
+    public int getStateChanges() { return stateChanges; }
+    
+    /** @return the number of draw calls in the last frame. */
+    public int getDrawCalls() { return drawCalls; }
+    
+    /**
+     * Render a tile to the screen.
+     * @param index of the tile in the snapshot.
+     * @param key draw key of the tile.
+     */
+    private void renderTile(int index, long key) {
+        
+        //Load pass and texture.
+        loadPass(RenderQueue.isOpaque(key));
+        Texture texture = getTexture(index);
+        if(texture != null) {
+            loadTexture(RenderQueue.getTextureId(key), texture.isArrayed());
+            texrect.set(texture.getMinU(), texture.getMinV(),
+                    texture.getMaxU(), texture.getMaxV());
+            layer.set((float) texture.getArrayLayer());
+        }
+        
+        System.arraycopy(current.getTransforms(), 16 * index, tileMatrix, 0, 16);
+        transform.setMatrix(tileMatrix);
+        colours.set(current.getColours(), 16 * index, 4);
+        textured.set(getTextureMode(texture));
+        
+        //Render tile.
+        glDrawArrays(GL_TRIANGLES, 0, tileMesh.getNumVertices());
+        drawCalls++;
+    }
+    
+    /**
+     * Render queued tiles in batches of consecutive tiles sharing render state.
+     * Batches never span the opaque and translucent passes.
+     * Textures packed into the same atlas page or array texture share a batch,
+     * and untextured tiles join any batch.
+     * Per-tile data is loaded in a single buffer update per frame.
+     */
+    private void renderInstanced() {
+        
+        //Write per-instance data for all queued tiles into this frame's region.
+        ByteBuffer data = instances.map(
+                (long) queue.size() * tileMesh.getInstanceStride());
+        for(int i = 0; i < queue.size(); i++) {
+            putInstance(data, queue.getIndex(i));
+        }
+        int size = data.position();
+        instances.unmap();
+        
+        //The same region backs the Tiles storage block.
+        if(activeMode == RenderMode.BUFFERED && size > 0) {
+            glBindBufferRange(GL_SHADER_STORAGE_BUFFER, TILES_BINDING,
+                    instances.getBufferId(), instances.getOffset(), size);
+        }
+        
+        //Draw each run of tiles with the same render state in a single call.
+        int first = 0, count = 0, batchStart = 0;
+        long batchKey = 0;
+        for(int i = 0; i < queue.size(); i++) {
+            
+            long key = queue.getKey(i);
+            int textureId = RenderQueue.getTextureId(key);
+            int batchTextureId = RenderQueue.getTextureId(batchKey);
+            
+            //Start a new batch upon change of pass, or of texture.
+            if(count > 0 && (RenderQueue.isOpaque(key) != RenderQueue.isOpaque(batchKey)
+                    || textureId != 0 && batchTextureId != 0 && textureId != batchTextureId)) {
+                renderBatch(batchKey, batchStart, first, count);
+                first += count;
+                count = 0;
+            }
+            if(count == 0 || batchTextureId == 0) {
+                batchKey = key;
+                batchStart = i;
+            }
+            count++;
+        }
+        if(count > 0) renderBatch(batchKey, batchStart, first, count);
+        
+        //Region may be reused once the GPU has finished these draws.
+        instances.fence();
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+    
+    /**
+     * Render a batch of tiles from the instance buffer.
+     * @param key draw key of the tiles in the batch.
+     * @param keyIndex position in the queue of the tile with the draw key.
+     * @param first index of the first tile in the batch.
+     * @param count number of tiles in the batch.
+     */
+    private void renderBatch(long key, int keyIndex, int first, int count) {
+        
+        loadPass(RenderQueue.isOpaque(key));
+        if(RenderQueue.getTextureId(key) != 0) {
+            Texture texture = getTexture(queue.getIndex(keyIndex));
+            loadTexture(RenderQueue.getTextureId(key), texture.isArrayed());
+        }
+        
+        //Offset into the per-tile data by attribute pointer or storage index.
+        if(activeMode == RenderMode.BUFFERED) base.set(first);
+        else tileMesh.setInstanceOffset(instances.getOffset()
+                + (long) first * tileMesh.getInstanceStride());
+        glDrawArraysInstanced(GL_TRIANGLES, 0, tileMesh.getNumVertices(), count);
+        drawCalls++;
+    }
+    
+    /**
+     * Write the per-instance data of a tile to the instance buffer.
+     * @param data mapped instance buffer.
+     * @param index of the tile in the snapshot.
+     */
+    private void putInstance(ByteBuffer data, int index) {
+        
+        //Transform, column-major.
+        float[] transforms = current.getTransforms();
+        for(int col = 0; col < 4; col++) {
+            for(int row = 0; row < 4; row++) {
+                data.putFloat(transforms[16*index + 4*row + col]);
+            }
+        }
+        
+        //Corner colours.
+        float[] colours = current.getColours();
+        for(int i = 16*index; i < 16*index + 16; i++) {
+            data.putFloat(colours[i]);
+        }
+        
+        //Flags (texture mode, and layer within array).
+        Texture texture = getTexture(index);
+        data.putFloat(getTextureMode(texture))
+            .putFloat(texture != null ? texture.getArrayLayer() : 0.0F)
+            .putFloat(0.0F).putFloat(0.0F);
+        
+        //Texture rectangle, within its atlas page.
+        if(texture != null) {
+            data.putFloat(texture.getMinU()).putFloat(texture.getMinV())
+                .putFloat(texture.getMaxU()).putFloat(texture.getMaxV());
+        } else {
+            data.putFloat(0.0F).putFloat(0.0F).putFloat(1.0F).putFloat(1.0F);
+        }
+    }
+    
+    /**
+     * Load a mesh to OpenGL.
+     * @param mesh to load.
+     */
+    private void loadMesh(Mesh mesh) {
+        
+        //Load VAO.
+        glBindVertexArray(mesh.getVaoId());
+        
+        //Load each VBO.
+        for(int i = 0; i < 2; i++) {
+            glEnableVertexAttribArray(i);
+        }
+        
+        //Load per-instance attributes.
+        if(activeMode == RenderMode.INSTANCED) {
+            for(int i = 0; i < mesh.getNumInstanceAttribs(); i++) {
+                glEnableVertexAttribArray(INSTANCE_ATTRIB + i);
+            }
+        }
+    }
+    
+    /**
+     * Load the view matrix into the Frame uniform block,
+     * to account for the size and centre of the view.
+     * @param width of the view (pixels).
+     * @param height of the view (pixels).
+     * @param x x-coordinate of the centre of the view (pixels).
+     * @param y y-coordinate of the centre of the view (pixels).
+     */
+    private void loadView(int width, int height, int x, int y) {
+        
+        viewMatrix[0] = 2.0F/width;
+        viewMatrix[5] = 2.0F/height;
+        viewMatrix[3] = -2.0F*x/width;
+        viewMatrix[7] = -2.0F*y/height;
+        ByteBuffer data = frame.begin(64);
+        for(int col = 0; col < 4; col++) {
+            for(int row = 0; row < 4; row++) {
+                data.putFloat(viewMatrix[4*row + col]);
+            }
+        }
+        frame.upload();
+    }
+    
+    /**
+     * Unload current mesh.
+     */
+    private void unloadMesh() {
+        
+        //Unload each VBO.
+        for(int i = 0; i < 2 + tileMesh.getNumInstanceAttribs(); i++) {
+            glDisableVertexAttribArray(i);
+        }
+        
+        //Unload VAO.
+        glBindVertexArray(0);
+    }
+    
+    /**
+     * Get the texture of a tile in the current snapshot, if it is ready.
+     * Textures evicted from the GPU and being loaded again are skipped,
+     * so the tile is rendered without texture until they are uploaded.
+     * @param index of the tile in the snapshot.
+     * @return the texture of the tile (null if none, or not ready).
+     */
+    private Texture getTexture(int index) {
+        Texture texture = current.getTexture(index);
+        return texture != null && texture.isReady() ? texture : null;
+    }
+    
+    /**
+     * @param texture of a tile (or null).
+     * @return how the texture is sampled: 0 if untextured, 1 if textured,
+     * 2 if arrayed, or 3 if textured with premultiplied alpha.
+     */
+    private static int getTextureMode(Texture texture) {
+        if(texture == null) return 0;
+        if(texture.isArrayed()) return 2;
+        return texture.isPremultiplied() ? 3 : 1;
+    }
+    
+    /**
+     * Load the render state of the opaque or translucent pass, if not already loaded.
+     * Opaque tiles are drawn without blending, writing depth so that farther tiles
+     * are rejected; translucent tiles are blended over them without writing depth.
+     * @param opaque whether to load the opaque pass.
+     */
+    private void loadPass(boolean opaque) {
+        
+        if(pass == (opaque ? 0 : 1)) return;
+        if(opaque) glDisable(GL_BLEND);
+        else glEnable(GL_BLEND);
+        glDepthMask(opaque);
+        pass = opaque ? 0 : 1;
+        stateChanges++;
+    }
+    
+    /**
+     * Bind a texture to TEXTURE0, or an array texture to TEXTURE1,
+     * if not already bound.
+     * @param textureId ID of the texture.
+     * @param array whether the texture is an array texture.
+     */
+    private void loadTexture(int textureId, boolean array) {
+        
+        if(array) {
+            if(textureId != boundArrayId) {
+                glActiveTexture(GL_TEXTURE1);
+                glBindTexture(GL_TEXTURE_2D_ARRAY, textureId);
+                glActiveTexture(GL_TEXTURE0);
+                boundArrayId = textureId;
+                textureBinds++;
+            }
+        } else if(textureId != boundTextureId) {
+            glBindTexture(GL_TEXTURE_2D, textureId);
+            boundTextureId = textureId;
+            textureBinds++;
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        frame.destroy();
+        instances.destroy();
+        super.destroy();
+    }
+    
+    @Override
+    protected void onInit() {
+        
+        //Resolve uniform variables and blocks.
+        renderMode = getUniform("renderMode");
+        base = getUniform("base");
+        transform = getUniform("transform");
+        colours = getUniform("colours");
+        textured = getUniform("textured");
+        layer = getUniform("layer");
+        texrect = getUniform("texrect");
+        
+        //Textures are bound to unit 0, and array textures to unit 1.
+        getUniform("sampler").set(0);
+        getUniform("arraySampler").set(1);
+        viewMatrix[10] = viewMatrix[15] = 1.0F;
+        bindUniformBlock("Frame", FRAME_BINDING);
+        storageSupported = bindStorageBlock("Tiles", TILES_BINDING);
+        
+        tileMesh = new Mesh(
+            
+            //Vertices.
+            new float[] {-0.5F, -0.5F,
+                         0.5F, 0.5F,
+                         -0.5F, 0.5F,
+                         0.5F, 0.5F,
+                         -0.5F, -0.5F,
+                         0.5F, -0.5F},
+            
+            //Texture coordinates.
+            new float[] {0.0F, 1.0F,
+                         1.0F, 0.0F,
+                         0.0F, 0.0F,
+                         1.0F, 0.0F,
+                         0.0F, 1.0F,
+                         1.0F, 1.0F});
+        
+        //Per-instance transform, colours and flags, streamed each frame.
+        tileMesh.setInstanceLayout(INSTANCE_ATTRIB, INSTANCE_DIMS);
+        instances = new StreamBuffer(GL_ARRAY_BUFFER,
+                1024L * tileMesh.getInstanceStride(), 3);
+    }
 }
\ No newline at end of file
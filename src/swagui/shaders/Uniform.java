@@ -0,0 +1,138 @@
+package swagui.shaders;
+
+import static org.lwjgl.opengl.GL20.*;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import org.lwjgl.system.MemoryStack;
+
+import swagui.graphics.Colour;
+import swagui.math.Matrix4;
+
+/**
+ * Handle to a uniform variable of a shader program.
+ * Resolved once upon shader initialization, so that values may be
+ * loaded without any lookups or allocations.
+ * @author Alec Dorrington
+ */
+public class Uniform {
+    
+    /** The location of the uniform variable. */
+    private final int location;
+    
+    /** Reusable array for loading vectors and matrices. */
+    private final float[] values = new float[16];
+    
+    /**
+     * Create a new uniform handle.
+     * @param location of the uniform variable.
+     */
+    Uniform(int location) {
+        this.location = location;
+    }
+    
+    /** @return the location of the uniform variable. */
+    public int getLocation() { return location; }
+    
+    /**
+     * Load value to GPU.
+     * @param value to be loaded.
+     */
+    public void set(boolean value) {
+        glUniform1i(location, value ? 1 : 0);
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param value to be loaded.
+     */
+    public void set(int value) {
+        glUniform1i(location, value);
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param value to be loaded.
+     */
+    public void set(float value) {
+        glUniform1f(location, value);
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param x first component of vector to be loaded.
+     * @param y second component of vector to be loaded.
+     * @param z third component of vector to be loaded.
+     * @param w fourth component of vector to be loaded.
+     */
+    public void set(float x, float y, float z, float w) {
+        glUniform4f(location, x, y, z, w);
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param colour to be loaded.
+     */
+    public void set(Colour colour) {
+        glUniform4f(location, colour.R, colour.G, colour.B, colour.A);
+    }
+    
+    /**
+     * Load array of values to GPU.
+     * @param colours to be loaded (at most 4).
+     */
+    public void set(List<Colour> colours) {
+        
+        int size = Math.min(colours.size(), 4);
+        for(int i = 0; i < size; i++) {
+            Colour colour = colours.get(i);
+            values[4*i] = colour.R;
+            values[4*i+1] = colour.G;
+            values[4*i+2] = colour.B;
+            values[4*i+3] = colour.A;
+        }
+        //Consecutive array elements are loaded from a single location.
+        try(MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer buffer = stack.mallocFloat(4*size);
+            buffer.put(values, 0, 4*size).flip();
+            glUniform4fv(location, buffer);
+        }
+    }
+    
+    /**
+     * Load array of vectors to GPU.
+     * @param values array containing the vectors to be loaded.
+     * @param offset position in the array of the first vector.
+     * @param count number of 4-component vectors to be loaded.
+     */
+    public void set(float[] values, int offset, int count) {
+        
+        try(MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer buffer = stack.mallocFloat(4*count);
+            buffer.put(values, offset, 4*count).flip();
+            glUniform4fv(location, buffer);
+        }
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param matrix to be loaded.
+     */
+    public void set(Matrix4 matrix) {
+        setMatrix(matrix.get(values));
+    }
+    
+    /**
+     * Load value to GPU.
+     * @param matrix to be loaded (4x4, row-major).
+     */
+    public void setMatrix(float[] matrix) {
+        
+        try(MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer buffer = stack.mallocFloat(16);
+            buffer.put(matrix, 0, 16).flip();
+            glUniformMatrix4fv(location, true, buffer);
+        }
+    }
+}
\ No newline at end of file
@@ -1,17 +1,28 @@
-#version 400 core
-
-in vec4 colour;
-in vec2 texmap_;
-
-out vec4 pixel;
-
-uniform sampler2D sampler;
-uniform bool textured;
-
-void main(void) {
-	
-	pixel = colour/255.0;
-	if(textured) {
-		pixel *= texture(sampler, texmap_);
-	}
+#version 400 core
+
+in vec4 colour;
+in vec2 texmap_;
+flat in int textured_;
+flat in float layer_;
+
+out vec4 pixel;
+
+//Textures are sampled from a 2D texture (1), a layer of an array texture (2),
+//or a 2D texture with premultiplied alpha (3), such as a cached layout.
+uniform sampler2D sampler;
+uniform sampler2DArray arraySampler;
+
+void main(void) {
+	
+	pixel = colour/255.0;
+	if(textured_ == 1) {
+		pixel *= texture(sampler, texmap_);
+	} else if(textured_ == 2) {
+		pixel *= texture(arraySampler, vec3(texmap_, layer_));
+	} else if(textured_ == 3) {
+		//Undo premultiplication, as alpha is applied again when blending.
+		vec4 texel = texture(sampler, texmap_);
+		if(texel.a > 0.0) texel.rgb /= texel.a;
+		pixel *= texel;
+	}
 }
\ No newline at end of file
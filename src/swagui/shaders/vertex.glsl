@@ -1,23 +1,85 @@
-#version 400 core
-
-in vec2 vertex;
-in vec2 texmap;
-
-out vec4 colour;
-out vec2 texmap_;
-
-uniform mat4 view;
-uniform mat4 transform;
-uniform vec4 colours[4];
-
-void main(void) {
-	
-	gl_Position = view * transform * vec4(vertex, 0.0, 1.0);
-	texmap_ = texmap;
-	
-	if(vertex == vec2(-0.5, -0.5)) colour = colours[0];
-	else if(vertex == vec2(-0.5, 0.5)) colour = colours[1];
-	else if(vertex == vec2(0.5, 0.5)) colour = colours[2];
-	else if(vertex == vec2(0.5, -0.5)) colour = colours[3];
-	else colour = vec4(0.0, 1.0, 1.0, 1.0);
+#version 400 core
+#extension GL_ARB_shader_storage_buffer_object : enable
+
+in vec2 vertex;
+in vec2 texmap;
+
+in mat4 instanceTransform;
+in vec4 instanceColours[4];
+in vec4 instanceFlags;
+in vec4 instanceTexrect;
+
+out vec4 colour;
+out vec2 texmap_;
+flat out int textured_;
+flat out float layer_;
+
+//Per-frame data, loaded once per frame.
+layout(std140) uniform Frame {
+	mat4 view;
+};
+
+#ifdef GL_ARB_shader_storage_buffer_object
+//Per-tile data, loaded once per frame and indexed by instance.
+struct TileData {
+	mat4 transform;
+	vec4 colours[4];
+	vec4 flags;
+	vec4 texrect;
+};
+
+layout(std430) readonly buffer Tiles {
+	TileData tiles[];
+};
+#endif
+
+//Render mode (0 = per-tile, 1 = instanced, 2 = buffered).
+uniform int renderMode;
+uniform int base;
+
+uniform mat4 transform;
+uniform vec4 colours[4];
+uniform int textured;
+uniform float layer;
+uniform vec4 texrect;
+
+vec4 corner(vec4 c0, vec4 c1, vec4 c2, vec4 c3) {
+	
+	if(vertex == vec2(-0.5, -0.5)) return c0;
+	else if(vertex == vec2(-0.5, 0.5)) return c1;
+	else if(vertex == vec2(0.5, 0.5)) return c2;
+	else if(vertex == vec2(0.5, -0.5)) return c3;
+	else return vec4(0.0, 1.0, 1.0, 1.0);
+}
+
+void main(void) {
+	
+	vec4 rect = vec4(0.0, 0.0, 1.0, 1.0);
+	if(renderMode == 2) {
+#ifdef GL_ARB_shader_storage_buffer_object
+		TileData tile = tiles[base + gl_InstanceID];
+		gl_Position = view * tile.transform * vec4(vertex, 0.0, 1.0);
+		colour = corner(tile.colours[0], tile.colours[1],
+				tile.colours[2], tile.colours[3]);
+		textured_ = int(tile.flags.x + 0.5);
+		layer_ = tile.flags.y;
+		rect = tile.texrect;
+#endif
+	} else if(renderMode == 1) {
+		gl_Position = view * instanceTransform * vec4(vertex, 0.0, 1.0);
+		colour = corner(instanceColours[0], instanceColours[1],
+				instanceColours[2], instanceColours[3]);
+		textured_ = int(instanceFlags.x + 0.5);
+		layer_ = instanceFlags.y;
+		rect = instanceTexrect;
+	} else {
+		gl_Position = view * transform * vec4(vertex, 0.0, 1.0);
+		colour = corner(colours[0], colours[1], colours[2], colours[3]);
+		textured_ = textured;
+		layer_ = layer;
+		rect = texrect;
+	}
+	
+	//Sample the texture's sub-rectangle of its (atlas) texture.
+	texmap_ = mix(rect.xy, rect.zw, texmap);
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package swagui.tiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import swagui.graphics.Colour;
+import swagui.graphics.PagedImage;
+import swagui.graphics.Texture;
+import swagui.layouts.Layout;
+
+/**
+ * Tile displaying an image too large to be loaded as a single texture,
+ * such as a map many thousands of pixels across.
+ * Only the pages of the image which are within the window are loaded,
+ * at the level of detail matching the size at which the image is displayed.
+ * The whole image is shown at the coarsest level until the visible pages load.
+ * The window is taken to be the bounds of the root of the scene.
+ * @author Alec Dorrington
+ */
+public class LargeImage extends Layout {
+    
+    /** The image being displayed. */
+    private final PagedImage image;
+    
+    /** Tile displaying the whole image at the coarsest level of detail. */
+    private final PageTile base = new PageTile();
+    
+    /** Tiles displaying the visible pages, reused between updates. */
+    private final List<PageTile> pages = new ArrayList<>();
+    
+    /**
+     * Create a new large image tile, sized to match the image.
+     * @param image to display.
+     */
+    public LargeImage(PagedImage image) {
+        super();
+        this.image = image;
+        addTile(base);
+        setFill(Fill.ABSOLUTE);
+        setSize(image.getWidth(), image.getHeight());
+    }
+    
+    /** @return the image being displayed. */
+    public PagedImage getImage() { return image; }
+    
+    @Override
+    public void update() {
+        
+        //The coarsest level spans the whole image, beneath the visible pages.
+        int top = image.getNumLevels() - 1;
+        base.setTexture(image.getPage(top, 0, 0))
+            .setPosition(getX(), getY())
+            .setSize(getWidth(), getHeight())
+            .setDepth(getDepth());
+        
+        int count = 0;
+        if(getWidth() > 0 && getHeight() > 0) {
+            
+            //Use the coarsest level with at least one texel per pixel.
+            float ratio = Math.min((float) image.getWidth() / getWidth(),
+                    (float) image.getHeight() / getHeight());
+            int level = ratio < 2.0F ? 0 : Math.min(top,
+                    31 - Integer.numberOfLeadingZeros((int) ratio));
+            if(level < top) count = placePages(level);
+        }
+        
+        //Hide pages which are no longer visible.
+        while(pages.size() > count) removeTile(pages.remove(pages.size() - 1));
+        image.endFrame();
+    }
+    
+    /**
+     * Place a tile for each page of a level which is within the window.
+     * @param level of detail.
+     * @return the number of pages placed.
+     */
+    private int placePages(int level) {
+        
+        //The root of the scene spans the window.
+        Tile view = this;
+        while(view.getParent().isPresent()) view = view.getParent().get();
+        
+        //Size of each texel of the level (pixels), and edges of the image.
+        float sx = (float) getWidth() / image.getLevelWidth(level);
+        float sy = (float) getHeight() / image.getLevelHeight(level);
+        float left = getX() - getWidth() / 2.0F, top = getY() + getHeight() / 2.0F;
+        
+        //Range of pages within the window.
+        float minX = Math.max(left, view.getMinX()) - left;
+        float maxX = Math.min(left + getWidth(), view.getMaxX()) - left;
+        float minY = top - Math.min(top, view.getMaxY());
+        float maxY = top - Math.max(top - getHeight(), view.getMinY());
+        if(minX >= maxX || minY >= maxY) return 0;
+        
+        int minCol = (int) (minX / sx / PagedImage.PAGE_SIZE);
+        int maxCol = Math.min(image.getNumCols(level) - 1,
+                (int) (maxX / sx / PagedImage.PAGE_SIZE));
+        int minRow = (int) (minY / sy / PagedImage.PAGE_SIZE);
+        int maxRow = Math.min(image.getNumRows(level) - 1,
+                (int) (maxY / sy / PagedImage.PAGE_SIZE));
+        
+        int count = 0;
+        for(int row = minRow; row <= maxRow; row++) {
+            for(int col = minCol; col <= maxCol; col++) {
+                
+                PageTile tile;
+                if(count < pages.size()) tile = pages.get(count);
+                else {
+                    tile = new PageTile();
+                    pages.add(tile);
+                    addTile(tile);
+                }
+                count++;
+                
+                //Round edges, rather than sizes, so that pages meet without gaps.
+                Texture page = image.getPage(level, col, row);
+                int x0 = Math.round(left + col * PagedImage.PAGE_SIZE * sx);
+                int x1 = Math.round(left + Math.min(image.getLevelWidth(level),
+                        (col + 1) * PagedImage.PAGE_SIZE) * sx);
+                int y0 = Math.round(top - Math.min(image.getLevelHeight(level),
+                        (row + 1) * PagedImage.PAGE_SIZE) * sy);
+                int y1 = Math.round(top - row * PagedImage.PAGE_SIZE * sy);
+                tile.setTexture(page)
+                    .setPosition((x0 + x1) / 2, (y0 + y1) / 2)
+                    .setSize(x1 - x0, y1 - y0)
+                    .setDepth(getDepth() + 1);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Tile displaying a single page, hidden until the page has loaded.
+     */
+    private static class PageTile extends Tile {
+        
+        private PageTile() {
+            setColour(Colour.WHITE);
+        }
+        
+        @Override
+        public boolean isVisible() {
+            Texture texture = getTextureOrNull();
+            return super.isVisible() && texture != null && texture.isReady();
+        }
+    }
+}
\ No newline at end of file
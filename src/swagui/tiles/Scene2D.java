@@ -1,121 +1,681 @@
-package swagui.tiles;
-
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.concurrent.Semaphore;
-
-import swagui.graphics.Colour;
-import swagui.graphics.Gradient;
-import swagui.input.InputHandler;
-import swagui.input.InputHandler.WindowResizeEvent;
-import swagui.layouts.Frame;
-import swagui.layouts.Layout;
-import swagui.shaders.TileShader;
-import swagui.window.Window.Handler;
-import swagui.window.Window.Scene;
-
-/**
- * Scene of 2D tiles to display in window.
- * @author Alec Dorrington
- */
-public class Scene2D implements Scene {
-    
-    /** Scene tile shader. */
-    TileShader shader = new TileShader();
-    
-    /**  Set of all tiles, ordered by depth. */
-    private SortedSet<Tile> tiles = new TreeSet<Tile>(
-            (t1, t2) -> 2*(t1.getDepth()-t2.getDepth())+1);
-    
-    /** Background of scene. */
-    private Frame background = (Frame) new Frame()
-            .setDepth(0)
-            .setVisible(true)
-            .setColour(Colour.PICO_VOID);
-    
-    /** Root layout of scene. */
-    private Layout root = new Layout(background);
-    
-    /** Lock to prevent tile modification during render. */
-    private Semaphore lock = new Semaphore(1);
-
-    @Override
-    public void init(int width, int height, Handler handler) {
-        
-        //Scene2D requires an associated InputHandler.
-        if(!(handler instanceof InputHandler))
-            throw new IllegalStateException("Missing InputHandler.");
-        
-        //Initialize shader.
-        shader.init();
-        
-        //Initialize background.
-        background.setSize(width, height);
-        update();
-        
-        //Resize background upon window resize.
-        InputHandler input = (InputHandler) handler;
-        input.getHandler().register(WindowResizeEvent.class, e -> {
-            background.setSize(e.WIDTH, e.HEIGHT);
-            update();
-        });
-    }
-
-    @Override
-    public void render(int width, int height) {
-        
-        //Acquire lock to prevent tile modification during render.
-        try {
-            lock.acquire();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        //Render tiles.
-        shader.render(tiles, width, height);
-        lock.release();
-    }
-    
-    @Override
-    public Gradient getColour() {
-        return background.getColour();
-    }
-
-    @Override
-    public void destroy() {
-        shader.destroy();
-    }
-    
-    /**
-     * Get the scene root, from which all tiles descend.
-     * @return the root tile of the screen.
-     */
-    public Layout getRoot() { return root; }
-    
-    /**
-     * Get the scene background, a FrameLayout sized to match the window.
-     * @return the background tile of the screen.
-     */
-    public Frame getBackground() { return background; }
-    
-    /**
-     * Update this scene and all of its children.
-     * @return this scene.
-     */
-    public Scene2D update() {
-        
-        //Acquire lock to prevent tile modification during render.
-        try {
-            lock.acquire();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        
-        //Update all tiles.
-        tiles.clear();
-        root.update();
-        tiles.addAll(root.getAncestors());
-        
-        lock.release();
-        return this;
-    }
+package swagui.tiles;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL14.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import swagui.graphics.Colour;
+import swagui.graphics.Gradient;
+import swagui.graphics.RenderTexture;
+import swagui.graphics.TextureCache;
+import swagui.graphics.TextureLoader;
+import swagui.graphics.TextureResidency;
+import swagui.input.InputHandler;
+import swagui.input.InputHandler.WindowResizeEvent;
+import swagui.layouts.Frame;
+import swagui.layouts.Layout;
+import swagui.math.Affine2;
+import swagui.shaders.TileShader;
+import swagui.tiles.Tile.Change;
+import swagui.window.Window.Handler;
+import swagui.window.Window.Scene;
+
+/**
+ * Scene of 2D tiles to display in window.
+ * @author Alec Dorrington
+ */
+public class Scene2D implements Scene {
+    
+    /**
+     * Orders tiles by depth, then by serial number, so that each tile has
+     * a distinct position, and can be found again to be removed.
+     */
+    private static final Comparator<Tile> DEPTH_ORDER =
+            Comparator.<Tile>comparingInt(t -> t.sortDepth).thenComparingLong(t -> t.serial);
+    
+    /** Values to which the textures of cached layouts are cleared. */
+    private static final float[] CLEAR_COLOUR = {0.0F, 0.0F, 0.0F, 0.0F},
+            CLEAR_DEPTH = {1.0F};
+    
+    /** Manager of the GPU memory used by textures, unlimited by default. */
+    private TextureResidency residency = new TextureResidency(Long.MAX_VALUE);
+    
+    /** Scene tile shader. */
+    TileShader shader = new TileShader().setResidency(residency);
+    
+    /**  Set of all tiles, ordered by depth. */
+    private SortedSet<Tile> tiles = new TreeSet<Tile>(DEPTH_ORDER);
+    
+    /** List of all tiles in render order, for iteration without allocation. */
+    private List<Tile> renderList = new ArrayList<>();
+    
+    /** Background of scene. */
+    private Frame background = (Frame) new Frame()
+            .setDepth(0)
+            .setVisible(true)
+            .setColour(Colour.PICO_VOID);
+    
+    /** Tiles added, removed or reordered since the last update, with each change. */
+    private List<Tile> changedTiles = new ArrayList<>();
+    private List<Change> changes = new ArrayList<>();
+    
+    /** Whether the set of tiles must be rebuilt in full at the next update. */
+    private boolean rebuild = true;
+    
+    /** Root layout of scene, through which tiles notify the scene of changes. */
+    private Layout root = new Layout(background) {
+        @Override
+        protected void invalidate() {
+            super.invalidate();
+            Scene2D.this.invalidate();
+        }
+        
+        @Override
+        protected void repaint() {
+            //When threaded, changes are only shown once published.
+            if(!threaded) redraw();
+        }
+        
+        @Override
+        protected void restructure(Tile tile, Change change) {
+            Scene2D.this.restructure(tile, change);
+        }
+    };
+    
+    /** Whether the scene has changed since it was last rendered. */
+    private volatile boolean dirty = true;
+    
+    /** Whether the scene is animating, and so must be rendered every frame. */
+    private volatile boolean animating = false;
+    
+    /** Whether the layout has changed since the scene was last updated. */
+    private volatile boolean layoutDirty = true;
+    
+    /** Size of the window upon its last resize, yet to be applied (width << 32 | height, -1 if none). */
+    private final AtomicLong resize = new AtomicLong(-1);
+    
+    /** Whether the scene has been initialized within a window. */
+    private volatile boolean initialized = false;
+    
+    /** Lock to prevent tile modification during render. */
+    private Semaphore lock = new Semaphore(1);
+    
+    /** Cached textures of layouts, by layout. */
+    private Map<Layout, Layer> layers = new HashMap<>();
+    
+    /** Textures of layouts no longer cached, to be deleted on the render thread. */
+    private List<RenderTexture> retired = new ArrayList<>();
+    
+    /** Loader of textures in the background, uploaded between frames. */
+    private TextureLoader loader = new TextureLoader().onDecode(this::redraw);
+    
+    /** Cache of textures shared between tiles, loaded in the background. */
+    private TextureCache textures = new TextureCache(loader);
+    
+    /** Number of frames in which cached layouts were reused or redrawn. */
+    private long cacheHits = 0, cacheMisses = 0;
+    
+    /** Whether tiles are updated on a separate thread, and rendered from snapshots. */
+    private volatile boolean threaded = false;
+    
+    /** Snapshots being written by the logic thread, and read by the render thread. */
+    private Snapshot back = new Snapshot(), front = new Snapshot();
+    
+    /** The most recently published snapshot, exchanged by both threads. */
+    private AtomicReference<Snapshot> ready = new AtomicReference<>(new Snapshot());
+
+    @Override
+    public void init(int width, int height, Handler handler) {
+        
+        //Scene2D requires an associated InputHandler.
+        if(!(handler instanceof InputHandler))
+            throw new IllegalStateException("Missing InputHandler.");
+        
+        //Initialize shader, with evicted textures loaded again in the background.
+        shader.init();
+        residency.setLoader(loader);
+        
+        //Initialize background, and root to span the window.
+        background.setSize(width, height);
+        root.setSize(width, height);
+        update();
+        
+        //Resize background upon window resize, applied by the thread which updates the scene,
+        //as when threaded, the logic thread may be modifying tiles meanwhile.
+        InputHandler input = (InputHandler) handler;
+        input.getHandler().register(WindowResizeEvent.class, e -> {
+            resize.set((long) e.WIDTH << 32 | e.HEIGHT & 0xFFFFFFFFL);
+            layoutDirty = true;
+            if(!threaded) update();
+        });
+        initialized = true;
+    }
+
+    @Override
+    public void render(int width, int height) {
+        
+        //Note changes made from here on.
+        dirty = false;
+        
+        //Upload loaded textures, redrawing any cached layouts which use them.
+        if(loader.upload() > 0) {
+            layers.values().forEach(l -> l.revision = -1);
+        }
+        //Continue rendering frames until all loaded textures are uploaded.
+        if(loader.isPending()) redraw();
+        
+        //Delete textures no longer in use.
+        textures.collect();
+        
+        //Render the latest snapshot without locking, if threaded.
+        if(threaded) {
+            if(ready.get().isFresh()) {
+                front = ready.getAndSet(front);
+                front.setFresh(false);
+            }
+            shader.render(front, width, height);
+            residency.endFrame();
+            return;
+        }
+        
+        //Acquire lock to prevent tile modification during render.
+        try {
+            lock.acquire();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        //Render tiles.
+        renderLayers(width, height);
+        shader.render(renderList, width, height);
+        residency.endFrame();
+        lock.release();
+    }
+    
+    /**
+     * Update the scene at each fixed-timestep tick, if any tiles have changed.
+     */
+    @Override
+    public void tick() {
+        if(layoutDirty && !threaded) update();
+    }
+    
+    @Override
+    public Gradient getColour() {
+        return background.getColour();
+    }
+    
+    @Override
+    public boolean isDirty() { return dirty || animating; }
+    
+    /**
+     * Mark the scene as changed, so that it is updated at the next tick and
+     * a new frame is rendered (once published, if threaded).
+     * Tile changes do so automatically, as they propagate up to the root.
+     * Wakes the window if it is waiting for events.
+     * @return this scene.
+     */
+    public Scene2D invalidate() {
+        layoutDirty = true;
+        //When threaded, changes are only shown once published.
+        if(!threaded) redraw();
+        return this;
+    }
+    
+    /** @return whether the scene is animating. */
+    public boolean isAnimating() { return animating; }
+    
+    /**
+     * Set whether the scene is animating. While animating, frames are
+     * rendered continuously, even in on-demand mode.
+     * @param animating whether the scene is animating.
+     * @return this scene.
+     */
+    public Scene2D setAnimating(boolean animating) {
+        this.animating = animating;
+        redraw();
+        return this;
+    }
+    
+    /** @return whether tiles are updated on a separate thread. */
+    public boolean isThreaded() { return threaded; }
+    
+    /**
+     * Set whether tiles are updated on a separate logic thread.
+     * When threaded, the logic thread may modify tiles freely, calling update()
+     * at the end of each tick to publish a snapshot of the scene. The render
+     * thread draws the latest snapshot without locking, so that layout and
+     * rendering may run concurrently. Snapshots are triple-buffered, so neither
+     * thread ever waits for the other.
+     * @param threaded whether tiles are updated on a separate thread.
+     * @return this scene.
+     */
+    public Scene2D setThreaded(boolean threaded) {
+        this.threaded = threaded;
+        //Layouts are only cached when not threaded.
+        rebuild = true;
+        if(threaded) update();
+        return this;
+    }
+    
+    /**
+     * Publish a snapshot of the tiles of the scene, to be rendered by the
+     * render thread. Called by update() when threaded, from the logic thread.
+     * Tiles which were modified without a change in layout may be published directly.
+     * @return this scene.
+     */
+    public Scene2D publish() {
+        
+        //Capture into the back snapshot, then exchange it with the ready one.
+        back.capture(renderList);
+        back.setFresh(true);
+        back = ready.getAndSet(back);
+        redraw();
+        return this;
+    }
+
+    @Override
+    public void destroy() {
+        layers.values().forEach(l -> l.texture.destroy());
+        retired.forEach(RenderTexture::destroy);
+        loader.destroy();
+        textures.destroy();
+        shader.destroy();
+    }
+    
+    /** @return the number of times a cached layout was drawn from its texture. */
+    public long getCacheHits() { return cacheHits; }
+    
+    /** @return the number of times a cached layout was redrawn to its texture. */
+    public long getCacheMisses() { return cacheMisses; }
+    
+    /** @return the GPU memory used by the textures of cached layouts (bytes). */
+    public long getCacheMemory() {
+        long memory = 0;
+        for(Layer layer : layers.values()) memory += layer.texture.getMemory();
+        return memory;
+    }
+    
+    /**
+     * Get the texture loader, through which textures may be loaded without
+     * stalling the scene. Tiles are drawn in their colour until their texture loads.
+     * @return the texture loader of the scene.
+     */
+    public TextureLoader getTextureLoader() { return loader; }
+    
+    /**
+     * Get the texture cache, through which textures may be shared between
+     * tiles by path, and are deleted once no longer in use.
+     * @return the texture cache of the scene.
+     */
+    public TextureCache getTextureCache() { return textures; }
+    
+    /**
+     * Get the texture residency manager, through which a budget may be set
+     * on the GPU memory used by textures.
+     * @return the texture residency manager of the scene.
+     */
+    public TextureResidency getResidency() { return residency; }
+    
+    /**
+     * Get the tile shader, through which the render mode may be selected.
+     * @return the tile shader of the scene.
+     */
+    public TileShader getShader() { return shader; }
+    
+    /**
+     * Get the scene root, from which all tiles descend.
+     * The root is centred at the origin and sized to match the window.
+     * @return the root tile of the screen.
+     */
+    public Layout getRoot() { return root; }
+    
+    /**
+     * Get the scene background, a FrameLayout sized to match the window.
+     * @return the background tile of the screen.
+     */
+    public Frame getBackground() { return background; }
+    
+    /**
+     * Update this scene and any of its children which have changed.
+     * Only changed subtrees are laid out again, and the set of tiles to
+     * render is patched with the tiles added, removed or reordered since
+     * the last update, rather than rebuilt.
+     * When threaded, also publishes a snapshot of the updated scene.
+     * @return this scene.
+     */
+    public Scene2D update() {
+        
+        //Snapshots are published without locking, as rendering never reads tiles.
+        boolean threaded = this.threaded;
+        if(!threaded) {
+            //Acquire lock to prevent tile modification during render.
+            try {
+                lock.acquire();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        //Apply the latest resize of the window, if any.
+        long size = resize.getAndSet(-1);
+        if(size != -1) {
+            int width = (int) (size >>> 32), height = (int) size;
+            background.setSize(width, height);
+            root.setSize(width, height);
+            //Tiles such as large images depend on the window, so are all laid out again.
+            root.invalidateAll();
+        }
+        
+        //Update changed tiles.
+        root.validate();
+        
+        //Cached layouts may have moved.
+        boolean caching = !threaded;
+        if(caching) layers.values().forEach(Layer::place);
+        
+        //Patch the set of tiles, or rebuild it if layouts are cached.
+        if(rebuild || !changes.isEmpty()) {
+            if(rebuild || (caching && !layers.isEmpty()) || !patch(caching)) {
+                rebuildTiles(caching);
+            }
+            renderList.clear();
+            renderList.addAll(tiles);
+            changedTiles.clear();
+            changes.clear();
+            rebuild = false;
+        }
+        layoutDirty = false;
+        
+        if(threaded) publish();
+        else lock.release();
+        return this;
+    }
+    
+    /**
+     * Record a change to the structure of the scene, to be patched into
+     * the set of tiles at the next update.
+     * @param tile which was added, removed or reordered.
+     * @param change the kind of change.
+     */
+    private void restructure(Tile tile, Change change) {
+        
+        if(rebuild) return;
+        if(change == Change.CACHED) {
+            rebuild = true;
+            
+        } else if(change == Change.REMOVED) {
+            //Removed tiles are recorded with their descendants, before they change.
+            gather(tile, changedTiles);
+            while(changes.size() < changedTiles.size()) changes.add(Change.REMOVED);
+            
+        } else {
+            changedTiles.add(tile);
+            changes.add(change);
+        }
+    }
+    
+    /**
+     * Patch the set of tiles with the changes since the last update, in order.
+     * @param caching whether cached layouts are rendered from their layers.
+     * @return whether the set was patched (false if it must be rebuilt).
+     */
+    private boolean patch(boolean caching) {
+        
+        for(int i = 0; i < changes.size(); i++) {
+            Tile tile = changedTiles.get(i);
+            switch(changes.get(i)) {
+                
+                case ADDED:
+                    //Tiles since removed again are skipped.
+                    if(isAttached(tile) && !insert(tile, caching)) return false;
+                    break;
+                
+                case REMOVED:
+                    if(tile.collected) {
+                        tiles.remove(tile);
+                        tile.collected = false;
+                    }
+                    break;
+                
+                case REORDERED:
+                    if(tile.collected && tile.sortDepth != tile.getDepth()) {
+                        tiles.remove(tile);
+                        tile.sortDepth = tile.getDepth();
+                        tiles.add(tile);
+                    }
+                    break;
+                
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Insert a tile and its descendants into the set of tiles.
+     * @param tile to insert.
+     * @param caching whether cached layouts are rendered from their layers.
+     * @return whether the tiles were inserted (false if a cached layout was found).
+     */
+    private boolean insert(Tile tile, boolean caching) {
+        
+        if(caching && tile instanceof Layout && ((Layout) tile).isCached()) return false;
+        if(!tile.collected) {
+            tile.sortDepth = tile.getDepth();
+            tiles.add(tile);
+            tile.collected = true;
+        }
+        if(tile instanceof Layout) {
+            for(Tile child : ((Layout) tile).getChildren()) {
+                if(!insert(child, caching)) return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Rebuild the set of tiles from the whole scene.
+     * @param caching whether cached layouts are rendered from their layers.
+     */
+    private void rebuildTiles(boolean caching) {
+        
+        tiles.forEach(t -> t.collected = false);
+        tiles.clear();
+        layers.values().forEach(l -> l.used = false);
+        collect(root, tiles, caching);
+        tiles.forEach(t -> t.collected = true);
+    }
+    
+    /**
+     * @param tile to check.
+     * @return whether the tile descends from the root of the scene.
+     */
+    private boolean isAttached(Tile tile) {
+        
+        Tile ancestor = tile;
+        while(ancestor.getParent().isPresent()) ancestor = ancestor.getParent().get();
+        return ancestor == root && tile != root;
+    }
+    
+    /**
+     * Gather a tile and all of its descendants.
+     * @param tile from which to gather.
+     * @param out list to which tiles are added.
+     */
+    private static void gather(Tile tile, List<Tile> out) {
+        out.add(tile);
+        if(tile instanceof Layout) {
+            for(Tile child : ((Layout) tile).getChildren()) gather(child, out);
+        }
+    }
+    
+    /**
+     * Gather the descendants of a layout to be rendered. Cached layouts are
+     * gathered into their own layers, and replaced by the tile drawing the layer.
+     * @param layout whose descendants are gathered.
+     * @param out collection to which tiles are added.
+     * @param caching whether cached layouts are rendered from their layers
+     * (false within another layer, or when threaded).
+     */
+    private void collect(Layout layout, Collection<Tile> out, boolean caching) {
+        
+        for(Tile tile : layout.getChildren()) {
+            
+            if(caching && tile instanceof Layout && ((Layout) tile).isCached()) {
+                
+                //Gather the layout and its descendants into its layer.
+                Layout cached = (Layout) tile;
+                Layer layer = layers.computeIfAbsent(cached, Layer::new);
+                layer.tiles.clear();
+                ((Tile) cached).sortDepth = cached.getDepth();
+                layer.tiles.add(cached);
+                collect(cached, layer.tiles, false);
+                layer.renderList.clear();
+                layer.renderList.addAll(layer.tiles);
+                layer.place();
+                layer.quad.sortDepth = layer.quad.getDepth();
+                out.add(layer.quad);
+                
+            } else {
+                tile.sortDepth = tile.getDepth();
+                out.add(tile);
+                if(tile instanceof Layout) collect((Layout) tile, out, caching);
+            }
+        }
+        
+        //Retire layers of layouts which are no longer cached.
+        if(layout == root) {
+            Iterator<Layer> it = layers.values().iterator();
+            while(it.hasNext()) {
+                Layer layer = it.next();
+                if(!layer.used) {
+                    retired.add(layer.texture);
+                    it.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Redraw the textures of any cached layouts which have changed.
+     * @param width of the window (pixels).
+     * @param height of the window (pixels).
+     */
+    private void renderLayers(int width, int height) {
+        
+        retired.forEach(RenderTexture::destroy);
+        retired.clear();
+        
+        for(Layer layer : layers.values()) {
+            
+            //Reuse the texture if nothing has changed.
+            long revision = layer.layout.getRevision();
+            if(revision == layer.revision) {
+                cacheHits++;
+                continue;
+            }
+            cacheMisses++;
+            layer.revision = revision;
+            
+            //Render the layout into its texture, over transparency.
+            layer.texture.bind();
+            glClearBufferfv(GL_COLOR, 0, CLEAR_COLOUR);
+            glClearBufferfv(GL_DEPTH, 0, CLEAR_DEPTH);
+            glBlendFuncSeparate(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA,
+                    GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+            //Descendants are drawn in the space of the layout, unrotated and unscaled.
+            if(!layer.layout.getWorldTransform(layer.base).invert()) layer.base.setIdentity();
+            shader.render(layer.contents.capture(layer.renderList, layer.base),
+                    layer.texture.getWidth(), layer.texture.getHeight(),
+                    layer.layout.getX(), layer.layout.getY());
+            glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        }
+        
+        RenderTexture.unbind();
+        glViewport(0, 0, width, height);
+    }
+    
+    /**
+     * Mark the scene to be rendered, waking the window if it is waiting for events.
+     */
+    private void redraw() {
+        boolean wasDirty = dirty;
+        dirty = true;
+        if(!wasDirty && initialized) glfwPostEmptyEvent();
+    }
+    
+    /**
+     * A cached layout, rendered to a texture which is drawn in its place.
+     */
+    private class Layer {
+        
+        /** The cached layout. */
+        private final Layout layout;
+        
+        /** Texture into which the layout is rendered. */
+        private final RenderTexture texture = new RenderTexture(1, 1);
+        
+        /** Tile which draws the texture in place of the layout. */
+        private final Tile quad = new Tile().setColour(Colour.WHITE);
+        
+        /** The layout and its descendants, ordered by depth. */
+        private final SortedSet<Tile> tiles = new TreeSet<Tile>(DEPTH_ORDER);
+        
+        /** The layout and its descendants in render order. */
+        private final List<Tile> renderList = new ArrayList<>();
+        
+        /** Transformation from the scene to the space of the layout. */
+        private final Affine2 base = new Affine2();
+        
+        /** Snapshot of the layout, reused each time it is redrawn. */
+        private final Snapshot contents = new Snapshot();
+        
+        /** The revision of the layout last rendered to the texture. */
+        private long revision = -1;
+        
+        /** Whether the layout was cached as of the last update. */
+        private boolean used = true;
+        
+        /**
+         * Create a new layer.
+         * @param layout to cache.
+         */
+        private Layer(Layout layout) {
+            this.layout = layout;
+            quad.setTexture(texture);
+        }
+        
+        /**
+         * Match the texture and quad to the bounds of the layout.
+         * Descendants outside the bounds of the layout are clipped.
+         * The quad shares the parent of the layout, so is transformed with it.
+         */
+        private void place() {
+            
+            texture.setSize(layout.getWidth(), layout.getHeight());
+            quad.setParent(layout.getParent().orElse(null))
+                .setPosition(layout.getX(), layout.getY())
+                .setSize(layout.getWidth(), layout.getHeight())
+                .setAngle(layout.getAngle())
+                .setOffset(layout.getOffsetX(), layout.getOffsetY())
+                .setScale(layout.getScale())
+                .setDepth(layout.getDepth());
+            used = true;
+        }
+    }
 }
\ No newline at end of file
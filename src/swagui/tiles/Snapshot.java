@@ -0,0 +1,173 @@
+package swagui.tiles;
+
+import java.util.List;
+
+import swagui.graphics.Colour;
+import swagui.graphics.Texture;
+import swagui.math.Affine2;
+
+/**
+ * Compact copy of the render state of the visible tiles of a scene.
+ * Captured by the logic thread, then read by the render thread without
+ * locking, as a snapshot is never modified while it is published.
+ * Tile state is stored in flat arrays, indexed by position in render order.
+ * @author Alec Dorrington
+ */
+public class Snapshot {
+    
+    /** Number of tiles in the snapshot. */
+    private int size = 0;
+    
+    /** Transformation matrix of each tile (16 per tile, row-major). */
+    private float[] transforms = new float[16 * 256];
+    
+    /** Corner colours of each tile (16 per tile, RGBA, 0-255). */
+    private float[] colours = new float[16 * 256];
+    
+    /** Texture of each tile (null if untextured). */
+    private Texture[] textures = new Texture[256];
+    
+    /** Depth of each tile. */
+    private int[] depths = new int[256];
+    
+    /** Whether each tile is fully opaque. */
+    private boolean[] opaque = new boolean[256];
+    
+    /** Whether the snapshot is yet to be taken by the render thread. */
+    private boolean fresh = false;
+    
+    /**
+     * Replace the contents of the snapshot with the visible tiles of a list.
+     * @param tiles to capture, in render order.
+     * @return this snapshot.
+     */
+    public Snapshot capture(List<Tile> tiles) {
+        return capture(tiles, null);
+    }
+    
+    /**
+     * Replace the contents of the snapshot with the visible tiles of a list,
+     * transformed further, such as into the space of an enclosing layout.
+     * @param tiles to capture, in render order.
+     * @param base transformation applied after that of each tile (or null).
+     * @return this snapshot.
+     */
+    public Snapshot capture(List<Tile> tiles, Affine2 base) {
+        
+        int previous = size;
+        size = 0;
+        for(int i = 0; i < tiles.size(); i++) {
+            Tile tile = tiles.get(i);
+            if(tile.isVisible()) {
+                add(tile);
+                if(base != null) transform(16 * (size - 1), base);
+            }
+        }
+        //Release textures no longer in use.
+        for(int i = size; i < previous; i++) textures[i] = null;
+        return this;
+    }
+    
+    /** @return the number of tiles in the snapshot. */
+    public int size() { return size; }
+    
+    /**
+     * @return the transformation matrices of all tiles
+     * (16 per tile, row-major, not to be modified).
+     */
+    public float[] getTransforms() { return transforms; }
+    
+    /**
+     * @return the corner colours of all tiles
+     * (16 per tile, RGBA, 0-255, not to be modified).
+     */
+    public float[] getColours() { return colours; }
+    
+    /**
+     * @param i index of the tile.
+     * @return the texture of the tile, or null if untextured.
+     */
+    public Texture getTexture(int i) { return textures[i]; }
+    
+    /**
+     * @param i index of the tile.
+     * @return the depth of the tile.
+     */
+    public int getDepth(int i) { return depths[i]; }
+    
+    /**
+     * @param i index of the tile.
+     * @return whether the tile is fully opaque.
+     */
+    public boolean isOpaque(int i) { return opaque[i]; }
+    
+    /** @return whether the snapshot is yet to be taken by the render thread. */
+    boolean isFresh() { return fresh; }
+    
+    /** @param fresh whether the snapshot is yet to be taken by the render thread. */
+    void setFresh(boolean fresh) { this.fresh = fresh; }
+    
+    /**
+     * Left-multiply a transformation matrix of the snapshot, in place.
+     * @param offset position of the matrix in the array.
+     * @param t transformation by which to multiply.
+     */
+    private void transform(int offset, Affine2 t) {
+        
+        //Only the first two rows are affected, as the transformation is 2D.
+        float[] m = transforms;
+        for(int c = 0; c < 4; c++) {
+            float r0 = m[offset+c], r1 = m[offset+4+c], r3 = m[offset+12+c];
+            m[offset+c] = t.m00*r0 + t.m01*r1 + t.m02*r3;
+            m[offset+4+c] = t.m10*r0 + t.m11*r1 + t.m12*r3;
+        }
+    }
+    
+    /**
+     * Append the state of a tile to the snapshot.
+     * @param tile to append.
+     */
+    private void add(Tile tile) {
+        
+        //Grow arrays if they are full.
+        if(size == depths.length) {
+            int capacity = 2 * size;
+            float[] newTransforms = new float[16 * capacity];
+            System.arraycopy(transforms, 0, newTransforms, 0, 16 * size);
+            transforms = newTransforms;
+            float[] newColours = new float[16 * capacity];
+            System.arraycopy(colours, 0, newColours, 0, 16 * size);
+            colours = newColours;
+            Texture[] newTextures = new Texture[capacity];
+            System.arraycopy(textures, 0, newTextures, 0, size);
+            textures = newTextures;
+            int[] newDepths = new int[capacity];
+            System.arraycopy(depths, 0, newDepths, 0, size);
+            depths = newDepths;
+            boolean[] newOpaque = new boolean[capacity];
+            System.arraycopy(opaque, 0, newOpaque, 0, size);
+            opaque = newOpaque;
+        }
+        
+        //Transform, written in place.
+        tile.getTransform(transforms, 16 * size);
+        
+        //Corner colours.
+        List<Colour> corners = tile.getColour().getCorners();
+        for(int c = 0; c < 4; c++) {
+            Colour colour = corners.get(c);
+            int offset = 16 * size + 4 * c;
+            colours[offset] = colour.R;
+            colours[offset+1] = colour.G;
+            colours[offset+2] = colour.B;
+            colours[offset+3] = colour.A;
+        }
+        
+        //Textures still loading are omitted, leaving the colour as a placeholder.
+        Texture texture = tile.getTextureOrNull();
+        textures[size] = texture != null && texture.isReady() ? texture : null;
+        depths[size] = tile.getDepth();
+        opaque[size] = tile.isOpaque();
+        size++;
+    }
+}
\ No newline at end of file
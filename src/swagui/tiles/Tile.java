@@ -1,322 +1,691 @@
-package swagui.tiles;
-
-import java.util.Optional;
-
-import swagui.graphics.Colour;
-import swagui.graphics.Gradient;
-import swagui.graphics.Texture;
-import swagui.layouts.Layout.Align;
-import swagui.layouts.Layout.Fill;
-import swagui.math.Matrix4;
-
-/**
- * Rectangular window element.
- * @author Alec Dorrington
- */
-public class Tile {
-    
-    /** The tile alignment for determining position within a view. */
-    private Align alignment = Align.CENTER;
-    
-    /** The position of the tile (pixels). */
-    private int x, y;
-    
-    /** The fill mode for determining tile size. */
-    private Fill fill = Fill.ABSOLUTE;
-    
-    /** The size of the tile (pixels). */
-    private int width = 100, height = 100;
-    
-    /** The relative size of the tile. */
-    private int hWeight = 1, vWeight = 1;
-    
-    /** The aspect ratio of the tile (width:height). */
-    private float aspectRatio = 1.0F;
-    
-    /** The angle of the tile (degrees, anti-clockwise). */
-    private int angle = 0;
-    
-    /** The depth of the tile (ordering, 0-99, default=50). */
-    private int depth = 50;
-    
-    /** The colour of the tile */
-    private Gradient colour = Colour.SEARBROOK;
-    
-    /** The texture of the tile. */
-    private Texture texture;
-    
-    /** Whether the tile is to be rendered. */
-    private boolean visible = true;
-    
-    /**
-     * Create a new tile.
-     */
-    public Tile() {}
-    
-    /**
-     * Create a new tile.
-     * @param scene in which the tile exists.
-     * @param x x-coordinate of the tile (pixels).
-     * @param y y-coordinate of the tile (pixels).
-     * @param width of the tile (pixels, left-to-right).
-     * @param height of the tile (pixels, bottom-to-top).
-     */
-    public Tile(int x, int y, int width, int height) {
-        setPosition(x, y);
-        setSize(width, height);
-    }
-    
-    /**
-     * Calculates the transformation matrix for this tile.
-     * @return the 4x4 transformation matrix.
-     */
-    public Matrix4 getTransform() {
-        
-        //Create scale, rotation and translation matrices.
-        Matrix4 scale = Matrix4.getScaleMatrix(width, height, 1.0F);
-        Matrix4 rotation = Matrix4.getRotationMatrix(angle);
-        Matrix4 translation = Matrix4.getTranslationMatrix(
-                x, y, 1.0F-(depth+1)/100.0F);
-        
-        //Transformation is product of matrices.
-        return translation.mul(rotation.mul(scale));
-    }
-    
-    /** @return the tile alignment for positioning within a view. */
-    public Align getAlignment() { return alignment; }
-    
-    /**
-     * Set the tile alignment for positioning within a view.
-     * @param alignment of tile.
-     * @return this tile.
-     */
-    public Tile setAlignment(Align alignment) {
-        this.alignment = alignment;
-        return this;
-    }
-    
-    /** @return x-coordinate of the tile (pixels, left-to-right). */
-    public int getX() { return x; }
-    
-    /** @return y-coordinate of the tile (pixels, bottom-to-top). */
-    public int getY() { return y; }
-    
-    /**
-     * @param x coordinate of the tile (pixels, left-to-right).
-     * @return this tile.
-     */
-    public Tile setX(int x) {
-        this.x = x;
-        return this;
-    }
-    
-    /**
-     * @param y coordinate of the tile (pixels, bottom-to-top).
-     * @return this tile.
-     */
-    public Tile setY(int y) {
-        this.y = y;
-        return this;
-    }
-    
-    /**
-     * Set the position of the tile.
-     * @param x coordinate of the tile (pixels, left-to-right).
-     * @param y coordinate of the tile (pixels, bottom-to-top).
-     * @return this tile.
-     */
-    public Tile setPosition(int x, int y) {
-        this.x = x;
-        this.y = y;
-        return this;
-    }
-    
-    /** @return tile fill mode for determining size. */
-    public Fill getFill() { return fill; }
-    
-    /**
-     * Set the tile fill mode for determining size.
-     * @param fill tile fill mode.
-     * @return this tile.
-     */
-    public Tile setFill(Fill fill) {
-        this.fill = fill;
-        return this;
-    }
-    
-    /** @return width of the tile (pixels). */
-    public int getWidth() { return width; }
-    
-    /** @return height of the tile (pixels). */
-    public int getHeight() { return height; }
-    
-    /**
-     * @param width of the tile (pixels).
-     * @return this tile.
-     */
-    public Tile setWidth(int width) {
-        this.width = width;
-        return this;
-    }
-    
-    /**
-     * @param height of the tile (pixels).
-     * @return this tile.
-     */
-    public Tile setHeight(int height) {
-        this.height = height;
-        return this;
-    }
-    
-    /**
-     * Set the size of the tile.
-     * @param width of the tile (pixels).
-     * @param height of the tile (pixels).
-     * @return this tile.
-     */
-    public Tile setSize(int width, int height) {
-        this.width = width;
-        this.height = height;
-        return this;
-    }
-    
-    /** @return relative horizontal weight. */
-    public int getHWeight() { return hWeight; }
-    
-    /** @return relative vertical weight. */
-    public int getVWeight() { return vWeight; }
-    
-    /**
-     * @param hWeight relative horizontal weight.
-     * @return this tile.
-     */
-    public Tile setHWeight(int hWeight) {
-        this.hWeight = hWeight;
-        return this;
-    }
-    
-    /**
-     * @param vWeight relative vertical weight.
-     * @return this tile.
-     */
-    public Tile setVWeight(int vWeight) {
-        this.vWeight = vWeight;
-        return this;
-    }
-    
-    /**
-     * Set tile weights for relative size.
-     * @param hWeight relative horizontal weight.
-     * @param vWeight relative vertical weight.
-     * @return this tile.
-     */
-    public Tile setWeights(int hWeight, int vWeight) {
-        this.hWeight = hWeight;
-        this.vWeight = vWeight;
-        return this;
-    }
-    
-    /** @return the aspect ratio of the tile (width:height). */
-    public float getAspectRatio() { return aspectRatio; }
-    
-    /**
-     * Set the aspect ratio of the tile.
-     * @param apsectRatio of the tile (width:height).
-     * @return this tile.
-     */
-    public Tile setAspectRatio(float aspectRatio) {
-        this.aspectRatio = aspectRatio;
-        return this;
-    }
-    
-    /** @return angle of the tile (degrees, anti-clockwise). */
-    public int getAngle() { return angle; }
-    
-    /**
-     * Set the orientation of the tile.<br>
-     * Note: this currently doesn't work with buttons or layouts.
-     * @param angle of the tile (degrees, anti-clockwise).
-     * @return this tile.
-     */
-    public Tile setAngle(int angle) {
-        this.angle = angle;
-        return this;
-    }
-    
-    /** @return depth of the tile (ordering, 0-99, default=50). */
-    public int getDepth() { return depth; }
-    
-    /**
-     * Set the depth of the tile (ordering).
-     * @param depth of the tile (0-99, default=50).
-     * @return this tile.
-     */
-    public Tile setDepth(int depth) {
-        this.depth = depth;
-        return this;
-    }
-    
-    /** @return colour of the tile. */
-    public Gradient getColour() { return colour; }
-    
-    /**
-     * Set the colour of the tile.
-     * @param colour of the tile.
-     * @return this tile.
-     */
-    public Tile setColour(Gradient colour) {
-        this.colour = colour;
-        return this;
-    }
-    
-    /** @return texture of the tile. */
-    public Optional<Texture> getTexture() {
-        return Optional.ofNullable(texture);
-    }
-    
-    /**
-     * Set the texture of the tile.
-     * @param texture of the tile (or null).
-     * @return this tile.
-     */
-    public Tile setTexture(Texture texture) {
-        this.texture = texture;
-        return this;
-    }
-    
-    /** @return whether the tile is visible to the renderer. */
-    public boolean isVisible() { return visible; }
-    
-    /**
-     * Set whether the tile is visible to the renderer.
-     * @param visible whether the tile is to be rendered.
-     * @return this tile.
-     */
-    public Tile setVisible(boolean visible) {
-        this.visible = visible;
-        return this;
-    }
-    
-    /** @return x-coordinate of left edge of tile. */
-    public int getMinX() {
-        return x - width/2;
-    }
-    
-    /** @return x-coordinate of right edge of tile. */
-    public int getMaxX() {
-        return x + width/2;
-    }
-    
-    /** @return y-coordinate of bottom edge of tile. */
-    public int getMinY() {
-        return y - height/2;
-    }
-    
-    /** @return y-coordinate of top edge of tile. */
-    public int getMaxY() {
-        return y + height/2;
-    }
-    
-    /** Update the position/size of this tile and its children. */
-    public void update() {}
+package swagui.tiles;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import swagui.graphics.Colour;
+import swagui.graphics.Gradient;
+import swagui.graphics.Texture;
+import swagui.layouts.Layout;
+import swagui.layouts.Layout.Align;
+import swagui.layouts.Layout.Fill;
+import swagui.math.Affine2;
+import swagui.math.Matrix4;
+
+/**
+ * Rectangular window element.
+ * The angle, offset and scale of a tile also apply to its descendants,
+ * about its centre, so that layouts may be rotated and scaled as a group.
+ * @author Alec Dorrington
+ */
+public class Tile {
+    
+    /**
+     * Kinds of change to the structure of the scene, by which the set of
+     * tiles to render is patched.
+     */
+    protected enum Change {
+        
+        /** A tile, and its descendants, was added to a layout. */
+        ADDED,
+        /** A tile, and its descendants, was removed from a layout. */
+        REMOVED,
+        /** The depth of a tile changed. */
+        REORDERED,
+        /** A layout was cached or uncached. */
+        CACHED
+    }
+    
+    /** Source of serial numbers, unique to each tile. */
+    private static final AtomicLong SERIALS = new AtomicLong();
+    
+    /** The tile alignment for determining position within a view. */
+    private Align alignment = Align.CENTER;
+    
+    /** The position of the tile (pixels). */
+    private int x, y;
+    
+    /** The fill mode for determining tile size. */
+    private Fill fill = Fill.ABSOLUTE;
+    
+    /** The size of the tile (pixels). */
+    private int width = 100, height = 100;
+    
+    /** The relative size of the tile. */
+    private int hWeight = 1, vWeight = 1;
+    
+    /** The aspect ratio of the tile (width:height). */
+    private float aspectRatio = 1.0F;
+    
+    /** The angle of the tile (degrees, anti-clockwise). */
+    private int angle = 0;
+    
+    /** The depth of the tile (ordering, 0-99, default=50). */
+    private int depth = 50;
+    
+    /** The colour of the tile */
+    private Gradient colour = Colour.SEARBROOK;
+    
+    /** The texture of the tile. */
+    private Texture texture;
+    
+    /** Whether the tile is to be rendered. */
+    private boolean visible = true;
+    
+    /** The layout containing this tile, if any. */
+    private Layout parent;
+    
+    /** The offset of the tile and its descendants from their layout position (pixels). */
+    private float offsetX = 0.0F, offsetY = 0.0F;
+    
+    /** The scale of the tile and its descendants, about its centre. */
+    private float scale = 1.0F;
+    
+    /** Cached transformation of descendants from layout space to the scene. */
+    private final Affine2 world = new Affine2();
+    
+    /** Whether the position, angle, offset, scale or parent has changed since the world was cached. */
+    private boolean worldDirty = true;
+    
+    /** Incremented whenever the world transformation is recalculated. */
+    private long worldVersion = 0;
+    
+    /** World version of the parent when the world transformation was cached. */
+    private long parentVersion = -1;
+    
+    /** Cached transformation of the tile, recalculated only once changed. */
+    private final Affine2 transform = new Affine2();
+    
+    /** Whether the size has changed since the transformation was cached. */
+    private boolean transformDirty = true;
+    
+    /** World version when the transformation was cached. */
+    private long transformVersion = -1;
+    
+    /** Whether the tile or any descendant has changed since it was last updated. */
+    private boolean layoutDirty = true;
+    
+    /** Serial number of the tile, ordering tiles of equal depth. */
+    final long serial = SERIALS.getAndIncrement();
+    
+    /** Depth of the tile when added to the scene's set of tiles, by which it is ordered. */
+    int sortDepth;
+    
+    /** Whether the tile is in the scene's set of tiles to render. */
+    boolean collected = false;
+    
+    /**
+     * Create a new tile.
+     */
+    public Tile() {}
+    
+    /**
+     * Create a new tile.
+     * @param scene in which the tile exists.
+     * @param x x-coordinate of the tile (pixels).
+     * @param y y-coordinate of the tile (pixels).
+     * @param width of the tile (pixels, left-to-right).
+     * @param height of the tile (pixels, bottom-to-top).
+     */
+    public Tile(int x, int y, int width, int height) {
+        setPosition(x, y);
+        setSize(width, height);
+    }
+    
+    /**
+     * Calculates the transformation matrix for this tile.
+     * Allocates; renderers use getTransform(float[], int) instead.
+     * @return the 4x4 transformation matrix.
+     */
+    public Matrix4 getTransform() {
+        return new Matrix4(getTransform(new float[16]));
+    }
+    
+    /**
+     * Calculates the transformation matrix for this tile, without allocation.
+     * Equivalent to getTransform(), as a flat row-major array.
+     * @param dest array of at least 16 floats.
+     * @return the destination array.
+     */
+    public float[] getTransform(float[] dest) {
+        return getTransform(dest, 0);
+    }
+    
+    /**
+     * Calculates the transformation matrix for this tile, without allocation.
+     * @param dest array into which the row-major matrix is written.
+     * @param offset position in the array of the first element.
+     * @return the destination array.
+     */
+    public float[] getTransform(float[] dest, int offset) {
+        
+        //World transformation, then position and size, rebuilt only once changed.
+        Affine2 world = getWorld();
+        if(transformDirty || transformVersion != worldVersion) {
+            transform.set(world).translate(x, y).scale(width, height);
+            transformVersion = worldVersion;
+            transformDirty = false;
+        }
+        return transform.get(dest, offset, 1.0F-(depth+1)/100.0F);
+    }
+    
+    /**
+     * Copy the transformation applied to descendants of this tile,
+     * from layout space (in which tiles are positioned) to the scene.
+     * This includes the angle, offset and scale of this tile and its ancestors.
+     * Updates the cached transformations, so must be called on the thread
+     * which updates the scene; elsewhere, use computeWorldTransform().
+     * @param dest transformation into which the result is copied.
+     * @return the destination transformation.
+     */
+    public Affine2 getWorldTransform(Affine2 dest) {
+        return dest.set(getWorld());
+    }
+    
+    /**
+     * Calculate the transformation applied to descendants of this tile afresh,
+     * without reading or writing the cached transformations of this tile or
+     * its ancestors, so that it may be called from any thread, such as for
+     * hit-testing on the input thread while the scene is being captured.
+     * @param dest transformation into which the result is written.
+     * @return the destination transformation.
+     */
+    public Affine2 computeWorldTransform(Affine2 dest) {
+        
+        //Parent applied last, then offset, rotate and scale about the centre of the tile.
+        Tile parent = this.parent;
+        if(parent != null) parent.computeWorldTransform(dest);
+        else dest.setIdentity();
+        return dest.translate(x + offsetX, y + offsetY).rotate(angle)
+                .scale(scale, scale).translate(-x, -y);
+    }
+    
+    /**
+     * @return the cached world transformation of descendants, recalculated
+     * if this tile or any ancestor has changed since it was cached.
+     */
+    Affine2 getWorld() {
+        
+        //Validate the parent first, since it is applied last.
+        Tile parent = this.parent;
+        Affine2 parentWorld = parent != null ? parent.getWorld() : null;
+        long version = parent != null ? parent.worldVersion : 0;
+        
+        if(worldDirty || parentVersion != version) {
+            
+            //Offset, rotate and scale about the centre of the tile.
+            world.set(x + offsetX, y + offsetY, angle, scale, scale).translate(-x, -y);
+            if(parentWorld != null) world.preMul(parentWorld);
+            parentVersion = version;
+            worldDirty = false;
+            worldVersion++;
+        }
+        return world;
+    }
+    
+    /**
+     * Determine whether a point of the scene lies within this tile,
+     * once rotated and scaled along with its ancestors. Allocates;
+     * callers testing often should provide their own transformation.
+     * @param px x-coordinate of the point (pixels).
+     * @param py y-coordinate of the point (pixels).
+     * @return whether the point is within the tile.
+     */
+    public boolean contains(float px, float py) {
+        return contains(px, py, new Affine2());
+    }
+    
+    /**
+     * Determine whether a point of the scene lies within this tile,
+     * once rotated and scaled along with its ancestors.
+     * Leaves the cached transformations untouched, so may be called from any thread.
+     * @param px x-coordinate of the point (pixels).
+     * @param py y-coordinate of the point (pixels).
+     * @param scratch transformation overwritten in the calculation.
+     * @return whether the point is within the tile.
+     */
+    public boolean contains(float px, float py, Affine2 scratch) {
+        
+        if(!invertTransform(scratch)) return false;
+        float lx = scratch.applyX(px, py), ly = scratch.applyY(px, py);
+        return Math.abs(lx) <= width / 2.0F && Math.abs(ly) <= height / 2.0F;
+    }
+    
+    /**
+     * @param px x-coordinate of a point of the scene (pixels).
+     * @param py y-coordinate of a point of the scene (pixels).
+     * @param scratch transformation overwritten in the calculation.
+     * @return x-coordinate of the point relative to the centre of this tile,
+     * unrotated and unscaled (pixels, NaN if the tile has no area).
+     */
+    public float getLocalX(float px, float py, Affine2 scratch) {
+        return invertTransform(scratch) ? scratch.applyX(px, py) : Float.NaN;
+    }
+    
+    /**
+     * @param px x-coordinate of a point of the scene (pixels).
+     * @param py y-coordinate of a point of the scene (pixels).
+     * @param scratch transformation overwritten in the calculation.
+     * @return y-coordinate of the point relative to the centre of this tile,
+     * unrotated and unscaled (pixels, NaN if the tile has no area).
+     */
+    public float getLocalY(float px, float py, Affine2 scratch) {
+        return invertTransform(scratch) ? scratch.applyY(px, py) : Float.NaN;
+    }
+    
+    /**
+     * Calculate the transformation from the scene to the centre of this tile,
+     * without using the cached transformations.
+     * @param dest transformation into which the result is written.
+     * @return whether the transformation could be inverted.
+     */
+    private boolean invertTransform(Affine2 dest) {
+        return computeWorldTransform(dest).translate(x, y).invert();
+    }
+    
+    /** @return the tile alignment for positioning within a view. */
+    public Align getAlignment() { return alignment; }
+    
+    /**
+     * Set the tile alignment for positioning within a view.
+     * @param alignment of tile.
+     * @return this tile.
+     */
+    public Tile setAlignment(Align alignment) {
+        if(this.alignment == alignment) return this;
+        this.alignment = alignment;
+        invalidate();
+        return this;
+    }
+    
+    /** @return x-coordinate of the tile (pixels, left-to-right). */
+    public int getX() { return x; }
+    
+    /** @return y-coordinate of the tile (pixels, bottom-to-top). */
+    public int getY() { return y; }
+    
+    /**
+     * @param x coordinate of the tile (pixels, left-to-right).
+     * @return this tile.
+     */
+    public Tile setX(int x) {
+        if(this.x == x) return this;
+        this.x = x;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * @param y coordinate of the tile (pixels, bottom-to-top).
+     * @return this tile.
+     */
+    public Tile setY(int y) {
+        if(this.y == y) return this;
+        this.y = y;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * Set the position of the tile.
+     * @param x coordinate of the tile (pixels, left-to-right).
+     * @param y coordinate of the tile (pixels, bottom-to-top).
+     * @return this tile.
+     */
+    public Tile setPosition(int x, int y) {
+        if(this.x == x && this.y == y) return this;
+        this.x = x;
+        this.y = y;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /** @return tile fill mode for determining size. */
+    public Fill getFill() { return fill; }
+    
+    /**
+     * Set the tile fill mode for determining size.
+     * @param fill tile fill mode.
+     * @return this tile.
+     */
+    public Tile setFill(Fill fill) {
+        if(this.fill == fill) return this;
+        this.fill = fill;
+        invalidate();
+        return this;
+    }
+    
+    /** @return width of the tile (pixels). */
+    public int getWidth() { return width; }
+    
+    /** @return height of the tile (pixels). */
+    public int getHeight() { return height; }
+    
+    /**
+     * @param width of the tile (pixels).
+     * @return this tile.
+     */
+    public Tile setWidth(int width) {
+        if(this.width == width) return this;
+        this.width = width;
+        transformDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * @param height of the tile (pixels).
+     * @return this tile.
+     */
+    public Tile setHeight(int height) {
+        if(this.height == height) return this;
+        this.height = height;
+        transformDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * Set the size of the tile.
+     * @param width of the tile (pixels).
+     * @param height of the tile (pixels).
+     * @return this tile.
+     */
+    public Tile setSize(int width, int height) {
+        if(this.width == width && this.height == height) return this;
+        this.width = width;
+        this.height = height;
+        transformDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /** @return relative horizontal weight. */
+    public int getHWeight() { return hWeight; }
+    
+    /** @return relative vertical weight. */
+    public int getVWeight() { return vWeight; }
+    
+    /**
+     * @param hWeight relative horizontal weight.
+     * @return this tile.
+     */
+    public Tile setHWeight(int hWeight) {
+        if(this.hWeight == hWeight) return this;
+        this.hWeight = hWeight;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * @param vWeight relative vertical weight.
+     * @return this tile.
+     */
+    public Tile setVWeight(int vWeight) {
+        if(this.vWeight == vWeight) return this;
+        this.vWeight = vWeight;
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * Set tile weights for relative size.
+     * @param hWeight relative horizontal weight.
+     * @param vWeight relative vertical weight.
+     * @return this tile.
+     */
+    public Tile setWeights(int hWeight, int vWeight) {
+        if(this.hWeight == hWeight && this.vWeight == vWeight) return this;
+        this.hWeight = hWeight;
+        this.vWeight = vWeight;
+        invalidate();
+        return this;
+    }
+    
+    /** @return the aspect ratio of the tile (width:height). */
+    public float getAspectRatio() { return aspectRatio; }
+    
+    /**
+     * Set the aspect ratio of the tile.
+     * @param apsectRatio of the tile (width:height).
+     * @return this tile.
+     */
+    public Tile setAspectRatio(float aspectRatio) {
+        if(this.aspectRatio == aspectRatio) return this;
+        this.aspectRatio = aspectRatio;
+        invalidate();
+        return this;
+    }
+    
+    /** @return angle of the tile (degrees, anti-clockwise). */
+    public int getAngle() { return angle; }
+    
+    /**
+     * Set the orientation of the tile, about its centre.
+     * Descendants of the tile are rotated with it.
+     * @param angle of the tile (degrees, anti-clockwise).
+     * @return this tile.
+     */
+    public Tile setAngle(int angle) {
+        if(this.angle == angle) return this;
+        this.angle = angle;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /** @return x-offset of the tile from its layout position (pixels). */
+    public float getOffsetX() { return offsetX; }
+    
+    /** @return y-offset of the tile from its layout position (pixels). */
+    public float getOffsetY() { return offsetY; }
+    
+    /**
+     * Offset the tile and its descendants from the position assigned by
+     * its layout, without affecting the layout of its siblings.
+     * @param offsetX x-offset of the tile (pixels, left-to-right).
+     * @param offsetY y-offset of the tile (pixels, bottom-to-top).
+     * @return this tile.
+     */
+    public Tile setOffset(float offsetX, float offsetY) {
+        if(this.offsetX == offsetX && this.offsetY == offsetY) return this;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /** @return scale of the tile and its descendants (default=1). */
+    public float getScale() { return scale; }
+    
+    /**
+     * Scale the tile and its descendants about its centre, without
+     * affecting the layout of its siblings.
+     * @param scale of the tile (default=1).
+     * @return this tile.
+     */
+    public Tile setScale(float scale) {
+        if(this.scale == scale) return this;
+        this.scale = scale;
+        worldDirty = true;
+        invalidate();
+        return this;
+    }
+    
+    /** @return depth of the tile (ordering, 0-99, default=50). */
+    public int getDepth() { return depth; }
+    
+    /**
+     * Set the depth of the tile (ordering).
+     * @param depth of the tile (0-99, default=50).
+     * @return this tile.
+     */
+    public Tile setDepth(int depth) {
+        if(this.depth == depth) return this;
+        this.depth = depth;
+        restructure(this, Change.REORDERED);
+        invalidate();
+        return this;
+    }
+    
+    /** @return colour of the tile. */
+    public Gradient getColour() { return colour; }
+    
+    /**
+     * Set the colour of the tile.
+     * @param colour of the tile.
+     * @return this tile.
+     */
+    public Tile setColour(Gradient colour) {
+        if(this.colour == colour) return this;
+        this.colour = colour;
+        repaint();
+        return this;
+    }
+    
+    /** @return texture of the tile. */
+    public Optional<Texture> getTexture() {
+        return Optional.ofNullable(texture);
+    }
+    
+    /** @return texture of the tile (or null), for use by the renderer without allocation. */
+    Texture getTextureOrNull() { return texture; }
+    
+    /**
+     * Set the texture of the tile.
+     * @param texture of the tile (or null).
+     * @return this tile.
+     */
+    public Tile setTexture(Texture texture) {
+        if(this.texture == texture) return this;
+        this.texture = texture;
+        repaint();
+        return this;
+    }
+    
+    /**
+     * @return whether the tile is fully opaque, considering its colour and texture.
+     */
+    public boolean isOpaque() {
+        return getColour().isOpaque()
+                && (texture == null || !texture.isReady() || texture.isOpaque());
+    }
+    
+    /** @return whether the tile is visible to the renderer. */
+    public boolean isVisible() { return visible; }
+    
+    /**
+     * Set whether the tile is visible to the renderer.
+     * @param visible whether the tile is to be rendered.
+     * @return this tile.
+     */
+    public Tile setVisible(boolean visible) {
+        if(this.visible == visible) return this;
+        this.visible = visible;
+        repaint();
+        return this;
+    }
+    
+    /** @return the layout containing this tile, if any. */
+    public Optional<Layout> getParent() {
+        return Optional.ofNullable(parent);
+    }
+    
+    /**
+     * Set the layout containing this tile.
+     * Called by layouts as tiles are added and removed.
+     * @param parent layout containing this tile (or null).
+     * @return this tile.
+     */
+    public Tile setParent(Layout parent) {
+        if(this.parent == parent) return this;
+        this.parent = parent;
+        worldDirty = true;
+        return this;
+    }
+    
+    /** @return x-coordinate of left edge of tile. */
+    public int getMinX() {
+        return x - width/2;
+    }
+    
+    /** @return x-coordinate of right edge of tile. */
+    public int getMaxX() {
+        return x + width/2;
+    }
+    
+    /** @return y-coordinate of bottom edge of tile. */
+    public int getMinY() {
+        return y - height/2;
+    }
+    
+    /** @return y-coordinate of top edge of tile. */
+    public int getMaxY() {
+        return y + height/2;
+    }
+    
+    /** Update the position/size of this tile and its children. */
+    public void update() {}
+    
+    /**
+     * Update this tile and its children, only if any of them has changed
+     * since this tile was last updated. Layouts validate their children,
+     * so that unchanged subtrees are skipped.
+     */
+    public void validate() {
+        if(!layoutDirty) return;
+        update();
+        layoutDirty = false;
+    }
+    
+    /**
+     * Mark this tile and all of its descendants to be updated again,
+     * even if unchanged, such as once the window has been resized.
+     * @return this tile.
+     */
+    public Tile invalidateAll() {
+        markDirty(this);
+        invalidate();
+        return this;
+    }
+    
+    /**
+     * Notify that this tile has changed and must be laid out and redrawn.
+     * Propagates up to the scene, which renders a new frame on demand.
+     */
+    protected void invalidate() {
+        layoutDirty = true;
+        if(parent != null) ((Tile) parent).invalidate();
+    }
+    
+    /**
+     * Notify that this tile has changed in appearance only, and must be
+     * redrawn without being laid out again. Propagates up to the scene.
+     */
+    protected void repaint() {
+        if(parent != null) ((Tile) parent).repaint();
+    }
+    
+    /**
+     * Notify that the structure of the scene has changed beneath this tile,
+     * so that the set of tiles to render may be patched. Propagates up to the scene.
+     * @param tile which was added, removed or reordered.
+     * @param change the kind of change.
+     */
+    protected void restructure(Tile tile, Change change) {
+        if(parent != null) ((Tile) parent).restructure(tile, change);
+    }
+    
+    /**
+     * Mark a tile and all of its descendants to be updated again.
+     * @param tile to mark.
+     */
+    private static void markDirty(Tile tile) {
+        tile.layoutDirty = true;
+        if(tile instanceof Layout) ((Layout) tile).getChildren().forEach(Tile::markDirty);
+    }
 }
\ No newline at end of file
@@ -1,218 +1,469 @@
-package swagui.window;
-
-import static org.lwjgl.opengl.GL.*;
-import static org.lwjgl.opengl.GL11.*;
-
-import swagui.graphics.Colour;
-import swagui.graphics.Gradient;
-
-import static org.lwjgl.glfw.GLFW.*;
-
-import static org.lwjgl.glfw.GLFWErrorCallback.*;
-
-/**
- * A GLFW/OpenGL window.
- * @author Alec Dorrington
- */
-public class Window {
-    
-    /** The ID of the window. */
-    private long windowId;
-    
-    /** The size of the window (pixels). */
-    private int width, height;
-    
-    /** The title of the window. */
-    private String title;
-    
-    /** The scene shown in the window. */
-    private Scene scene;
-    
-    /** The input handler to detect events in the window. */
-    private Handler handler;
-    
-    /** Whether the window is currently open. */
-    private boolean open = false;
-    
-    /**
-     * Create a new window. Use window.open() to open it.
-     * @param width of window (pixels).
-     * @param height of window (pixels).
-     * @param title of window.
-     * @param scene to display.
-     * @param handler for use in handling input events.
-     */
-    public Window(int width, int height, String title,
-            Scene scene, Handler handler) {
-        this.width = width;
-        this.height = height;
-        this.title = title;
-        this.scene = scene;
-        this.handler = handler;
-    }
-    
-    /** @return the ID of the window/ */
-    public long getWindowId() { return windowId; }
-    
-    /** @return the width of the window (pixels). */
-    public int getWidth() { return width; }
-    
-    /** @return the height of the window (pixels). */
-    public int getHeight() { return height; }
-    
-    /** @return the title of the window. */
-    public String getTitle() { return title; }
-    
-    /**
-     * Set a new title for this window.
-     * @param title of this window.
-     * @return this window.
-     */
-    public Window setTitle(String title) {
-        this.title = title;
-        return this;
-    }
-    
-    /** @return the scene shown in the window. */
-    public Scene getScene() { return scene; }
-    
-    /** @return the handler to detect events in the window. */
-    public Handler getHandler() { return handler; }
-    
-    /**
-     * Open the window. Blocks execution until window closes.
-     */
-    public void open() {
-        
-        init();
-        
-        //Continue rendering while window is being resized.
-        glfwSetFramebufferSizeCallback(windowId, (window, width, height) -> {
-            this.width = width;
-            this.height = height;
-            glViewport(0, 0, width, height);
-            render();
-        });
-        
-        open = true;
-        
-        //Update window and event handler until window is closed.
-        while(open) {
-            render();
-            glfwPollEvents();
-            glfwSetWindowTitle(windowId, title);
-            open &= !glfwWindowShouldClose(windowId);
-        }
-        destroy();
-    }
-    
-    /** @return whether the window is currently open. */
-    public boolean isOpen() { return open; }
-    
-    /**
-     * Close the window.
-     * @return this window.
-     */
-    public Window close() {
-        open = false;
-        return this;
-    }
-    
-    /**
-     * Initialize and create a new window.
-     */
-    private void init() {
-        
-        //Initialize GLFW.
-        glfwInit();
-        glfwSetErrorCallback(createPrint(System.err));
-        
-        //Set version details.
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
-        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
-        
-        //Create and show window.
-        windowId = glfwCreateWindow(width, height, title, 0, 0);
-        glfwMakeContextCurrent(windowId);
-        createCapabilities();
-        //glfwSetWindowIcon(windowId, null);
-        glfwShowWindow(windowId);
-        
-        //Initialize OpenGL settings.
-        glEnable(GL_DEPTH_TEST);
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-        
-        //Initialize shader.
-        handler.init(this);
-        scene.init(width, height, handler);
-    }
-    
-    /**
-     * Render a frame to screen.
-     */
-    private void render() {
-        
-        //Clear colour/depth buffers.
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        Colour colour = scene.getColour().getCorners().get(0);
-        glClearColor(colour.R/255.0F, colour.G/255.0F, colour.B/255.0F, 1.0F);
-        
-        //Perform render.
-        scene.render(width, height);
-        glfwSwapBuffers(windowId);
-    }
-    
-    /**
-     * Destroy the window.
-     */
-    private void destroy() {
-        //Destroy shader and window.
-        scene.destroy();
-        glfwDestroyWindow(windowId);
-    }
-    
-    /**
-     * Scene to render to screen.
-     */
-    public interface Scene {
-        
-        /**
-         * Initialize scene shaders.
-         * @param width of the window (pixels).
-         * @param height of the window (pixels).
-         * @param handler of window input events.
-         */
-        public void init(int width, int height, Handler handler);
-        
-        /**
-         * Render the scene to the screen.
-         * @param width of the window (pixels).
-         * @param height of the window (pixels).
-         */
-        public void render(int width, int height);
-        
-        /**
-         * @return the background colour of this scene.
-         */
-        public Gradient getColour();
-        
-        /**
-         * Perform cleanup upon window close.
-         */
-        public void destroy();
-    }
-    
-    /**
-     * Handler of window input events.
-     */
-    public interface Handler {
-        
-        /**
-         * Initialize input listeners.
-         * @param window to listen to.
-         */
-        public void init(Window window);
-    }
+package swagui.window;
+
+import static org.lwjgl.opengl.GL.*;
+import static org.lwjgl.opengl.GL11.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import swagui.graphics.Colour;
+import swagui.graphics.Gradient;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+import static org.lwjgl.glfw.GLFWErrorCallback.*;
+
+/**
+ * A GLFW/OpenGL window.
+ * @author Alec Dorrington
+ */
+public class Window {
+    
+    /**
+     * Method for determining when frames are rendered.
+     */
+    public enum Mode {
+        
+        /** Render frames continuously, polling for events in between. */
+        CONTINUOUS,
+        /** Wait for events, rendering only once the scene has changed. */
+        ON_DEMAND
+    }
+    
+    /** The ID of the window. */
+    private long windowId;
+    
+    /** The size of the window (pixels). */
+    private int width, height;
+    
+    /** The title of the window. */
+    private String title;
+    
+    /** The scene shown in the window. */
+    private Scene scene;
+    
+    /** The input handler to detect events in the window. */
+    private Handler handler;
+    
+    /** Whether the window is currently open. */
+    private boolean open = false;
+    
+    /** The method for determining when frames are rendered. */
+    private Mode mode = Mode.CONTINUOUS;
+    
+    /** Maximum time to wait for events in on-demand mode (seconds). */
+    private double timeout = 0.5;
+    
+    /** Whether a frame has been requested regardless of scene changes. */
+    private volatile boolean renderRequested = true;
+    
+    /** The number of frames rendered since the window opened. */
+    private long frames = 0;
+    
+    /** The ID of the thread running the window, and its CPU time upon opening. */
+    private long threadId = -1, startCpuTime = 0;
+    
+    /** Remaining time before a frame deadline within which to spin, not sleep (ns). */
+    private static final long SPIN_TIME = 2_000_000;
+    
+    /** Maximum number of ticks to run per frame, after which the backlog is dropped. */
+    private static final int MAX_TICKS = 8;
+    
+    /** Whether to synchronize buffer swaps with the display refresh. */
+    private volatile boolean vsync = false;
+    
+    /** The swap interval applied to the current context (-1 if none yet). */
+    private int swapInterval = -1;
+    
+    /** The minimum time between frames (ns, 0 if uncapped). */
+    private volatile long frameLength = 0;
+    
+    /** The time between fixed-timestep updates (ns, 0 if disabled). */
+    private volatile long tickLength = 0;
+    
+    /** Actions to perform at each fixed-timestep update. */
+    private List<Runnable> tickActions = new ArrayList<>();
+    
+    /** Fraction of a tick elapsed since the last update, for interpolation (0-1). */
+    private float alpha = 1.0F;
+    
+    /**
+     * Create a new window. Use window.open() to open it.
+     * @param width of window (pixels).
+     * @param height of window (pixels).
+     * @param title of window.
+     * @param scene to display.
+     * @param handler for use in handling input events.
+     */
+    public Window(int width, int height, String title,
+            Scene scene, Handler handler) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.scene = scene;
+        this.handler = handler;
+    }
+    
+    /** @return the ID of the window/ */
+    public long getWindowId() { return windowId; }
+    
+    /** @return the width of the window (pixels). */
+    public int getWidth() { return width; }
+    
+    /** @return the height of the window (pixels). */
+    public int getHeight() { return height; }
+    
+    /** @return the title of the window. */
+    public String getTitle() { return title; }
+    
+    /**
+     * Set a new title for this window.
+     * @param title of this window.
+     * @return this window.
+     */
+    public Window setTitle(String title) {
+        this.title = title;
+        if(open) glfwPostEmptyEvent();
+        return this;
+    }
+    
+    /** @return the method for determining when frames are rendered. */
+    public Mode getMode() { return mode; }
+    
+    /**
+     * Set the method for determining when frames are rendered.
+     * Idle windows in on-demand mode consume almost no CPU or GPU time.
+     * @param mode CONTINUOUS (default) or ON_DEMAND.
+     * @return this window.
+     */
+    public Window setMode(Mode mode) {
+        this.mode = mode;
+        requestRender();
+        return this;
+    }
+    
+    /**
+     * Set the maximum time to wait for events in on-demand mode,
+     * after which the scene is checked for changes regardless.
+     * @param timeout maximum wait (seconds, default 0.5).
+     * @return this window.
+     */
+    public Window setTimeout(double timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+    
+    /**
+     * Request that a new frame be rendered, waking the window if it
+     * is waiting for events. May be called from any thread.
+     * @return this window.
+     */
+    public Window requestRender() {
+        renderRequested = true;
+        if(open) glfwPostEmptyEvent();
+        return this;
+    }
+    
+    /** @return whether buffer swaps are synchronized with the display refresh. */
+    public boolean isVsync() { return vsync; }
+    
+    /**
+     * Set whether buffer swaps are synchronized with the display refresh.
+     * @param vsync whether to enable vsync (default false).
+     * @return this window.
+     */
+    public Window setVsync(boolean vsync) {
+        this.vsync = vsync;
+        return this;
+    }
+    
+    /**
+     * Limit the rate at which frames are rendered. The window sleeps until
+     * shortly before each frame is due, then spins for a precise deadline.
+     * @param fps maximum frames per second (0 for uncapped, default).
+     * @return this window.
+     */
+    public Window setFrameCap(int fps) {
+        frameLength = fps > 0 ? 1_000_000_000L / fps : 0;
+        return this;
+    }
+    
+    /**
+     * Set the rate of fixed-timestep updates. Ticks run at a steady rate
+     * independent of the frame rate; rendering is passed the fraction of
+     * a tick elapsed since the last, for interpolation.
+     * @param tps ticks per second (0 to disable, default).
+     * @return this window.
+     */
+    public Window setTickRate(double tps) {
+        tickLength = tps > 0 ? (long) (1_000_000_000L / tps) : 0;
+        return this;
+    }
+    
+    /**
+     * Perform an action at each fixed-timestep update, on the window thread.
+     * @param action to perform, such as updating game logic.
+     * @return this window.
+     */
+    public Window onTick(Runnable action) {
+        tickActions.add(action);
+        return this;
+    }
+    
+    /** @return the number of frames rendered since the window opened. */
+    public long getFrames() { return frames; }
+    
+    /**
+     * Get the CPU time consumed by the thread running the window,
+     * for comparing the idle cost of each mode. May be called from any thread.
+     * @return CPU time since the window opened (nanoseconds, -1 if unsupported).
+     */
+    public long getCpuTime() {
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threadId == -1 || !threads.isThreadCpuTimeSupported()) return -1;
+        long time = threads.getThreadCpuTime(threadId);
+        return time == -1 ? -1 : time - startCpuTime;
+    }
+    
+    /** @return the scene shown in the window. */
+    public Scene getScene() { return scene; }
+    
+    /** @return the handler to detect events in the window. */
+    public Handler getHandler() { return handler; }
+    
+    /**
+     * Open the window. Blocks execution until window closes.
+     */
+    public void open() {
+        
+        init();
+        
+        //Continue rendering while window is being resized.
+        glfwSetFramebufferSizeCallback(windowId, (window, width, height) -> {
+            this.width = width;
+            this.height = height;
+            glViewport(0, 0, width, height);
+            render();
+        });
+        
+        //Measure CPU time of this thread from now on.
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threadId = Thread.currentThread().getId();
+        if(threads.isThreadCpuTimeSupported()) {
+            startCpuTime = threads.getCurrentThreadCpuTime();
+        }
+        
+        open = true;
+        long previous = System.nanoTime(), lag = 0, nextFrame = previous;
+        
+        //Update window and event handler until window is closed.
+        while(open) {
+            
+            //Apply changes to vsync on the window thread.
+            if(swapInterval != (vsync ? 1 : 0)) {
+                swapInterval = vsync ? 1 : 0;
+                glfwSwapInterval(swapInterval);
+            }
+            
+            //Run any fixed-timestep updates which are due.
+            long now = System.nanoTime(), tick = tickLength;
+            lag += now - previous;
+            previous = now;
+            if(tick > 0) {
+                for(int i = 0; lag >= tick; i++, lag -= tick) {
+                    //Drop the backlog rather than falling ever further behind.
+                    if(i == MAX_TICKS) { lag %= tick; break; }
+                    tick();
+                }
+                alpha = (float) lag / tick;
+            } else {
+                lag = 0;
+                alpha = 1.0F;
+            }
+            
+            //Skip the frame if nothing has changed, in on-demand mode.
+            if(mode == Mode.CONTINUOUS || renderRequested || scene.isDirty()) {
+                renderRequested = false;
+                
+                //Wait until the frame is due, if the frame rate is capped.
+                long frame = frameLength;
+                if(frame > 0) {
+                    nextFrame = Math.max(nextFrame + frame, System.nanoTime());
+                    waitUntil(nextFrame);
+                }
+                render();
+            }
+            
+            //Block until the next event or tick, in on-demand mode.
+            if(mode == Mode.ON_DEMAND && !scene.isDirty()) {
+                glfwWaitEventsTimeout(tick > 0 ?
+                    Math.min(timeout, (tick - lag) / 1.0E9) : timeout);
+            } else glfwPollEvents();
+            
+            glfwSetWindowTitle(windowId, title);
+            open &= !glfwWindowShouldClose(windowId);
+        }
+        destroy();
+    }
+    
+    /** @return whether the window is currently open. */
+    public boolean isOpen() { return open; }
+    
+    /**
+     * Close the window.
+     * @return this window.
+     */
+    public Window close() {
+        if(open) glfwPostEmptyEvent();
+        open = false;
+        return this;
+    }
+    
+    /**
+     * Initialize and create a new window.
+     */
+    private void init() {
+        
+        //Initialize GLFW.
+        glfwInit();
+        glfwSetErrorCallback(createPrint(System.err));
+        
+        //Set version details.
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        
+        //Create and show window.
+        windowId = glfwCreateWindow(width, height, title, 0, 0);
+        glfwMakeContextCurrent(windowId);
+        createCapabilities();
+        //glfwSetWindowIcon(windowId, null);
+        glfwShowWindow(windowId);
+        
+        //Initialize OpenGL settings.
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        
+        //Initialize shader.
+        handler.init(this);
+        scene.init(width, height, handler);
+    }
+    
+    /**
+     * Render a frame to screen.
+     */
+    private void render() {
+        
+        //Clear colour/depth buffers.
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        Colour colour = scene.getColour().getCorners().get(0);
+        glClearColor(colour.R/255.0F, colour.G/255.0F, colour.B/255.0F, 1.0F);
+        
+        //Perform render.
+        scene.render(width, height, alpha);
+        glfwSwapBuffers(windowId);
+        frames++;
+    }
+    
+    /**
+     * Perform a single fixed-timestep update.
+     */
+    private void tick() {
+        tickActions.forEach(Runnable::run);
+        scene.tick();
+    }
+    
+    /**
+     * Wait until the given time, sleeping until shortly before
+     * then spinning, as sleeps are imprecise.
+     * @param deadline to wait for (ns, relative to System.nanoTime()).
+     */
+    private static void waitUntil(long deadline) {
+        
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > SPIN_TIME) {
+            LockSupport.parkNanos(remaining - SPIN_TIME);
+        }
+        while(System.nanoTime() < deadline) Thread.onSpinWait();
+    }
+    
+    /**
+     * Destroy the window.
+     */
+    private void destroy() {
+        //Destroy shader and window.
+        scene.destroy();
+        glfwDestroyWindow(windowId);
+    }
+    
+    /**
+     * Scene to render to screen.
+     */
+    public interface Scene {
+        
+        /**
+         * Initialize scene shaders.
+         * @param width of the window (pixels).
+         * @param height of the window (pixels).
+         * @param handler of window input events.
+         */
+        public void init(int width, int height, Handler handler);
+        
+        /**
+         * Render the scene to the screen.
+         * @param width of the window (pixels).
+         * @param height of the window (pixels).
+         */
+        public void render(int width, int height);
+        
+        /**
+         * Render the scene to the screen, between fixed-timestep updates.
+         * @param width of the window (pixels).
+         * @param height of the window (pixels).
+         * @param alpha fraction of a tick elapsed since the last update (0-1),
+         * for interpolating between the previous and current states.
+         */
+        public default void render(int width, int height, float alpha) {
+            render(width, height);
+        }
+        
+        /**
+         * Perform a fixed-timestep update, if enabled on the window.
+         */
+        public default void tick() {}
+        
+        /**
+         * @return the background colour of this scene.
+         */
+        public Gradient getColour();
+        
+        /**
+         * Whether the scene has changed since it was last rendered.
+         * In on-demand mode, frames are only rendered while this holds.
+         * @return true by default, so the scene is always rendered.
+         */
+        public default boolean isDirty() { return true; }
+        
+        /**
+         * Perform cleanup upon window close.
+         */
+        public void destroy();
+    }
+    
+    /**
+     * Handler of window input events.
+     */
+    public interface Handler {
+        
+        /**
+         * Initialize input listeners.
+         * @param window to listen to.
+         */
+        public void init(Window window);
+    }
 }
\ No newline at end of file